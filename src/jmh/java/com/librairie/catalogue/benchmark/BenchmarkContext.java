@@ -0,0 +1,101 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.CatalogueApplication;
+import com.librairie.catalogue.cache.IsbnFilter;
+import com.librairie.catalogue.search.AuthorSuggestIndex;
+import com.librairie.catalogue.search.BookSearchIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Boots the application against an in-memory H2 database and seeds it with generated books.
+ * Each JMH fork runs in its own JVM, so one context per fork is enough.
+ */
+public final class BenchmarkContext {
+    private static final int AUTHOR_COUNT = 1_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private BenchmarkContext() {
+    }
+
+    // Properties are passed as command line arguments so that they override application.properties
+    public static ConfigurableApplicationContext start(String... properties) {
+        return builder().run(arguments(properties));
+    }
+
+    /**
+     * Starts the application on a {@link SlowDataSource}, handed to {@code dataSource}.
+     */
+    static ConfigurableApplicationContext start(AtomicReference<SlowDataSource> dataSource, String... properties) {
+        return builder().initializers(SlowDataSource.wrap(dataSource)).run(arguments(properties));
+    }
+
+    private static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(CatalogueApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.NONE);
+    }
+
+    private static String[] arguments(String... properties) {
+        return Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new);
+    }
+
+    /**
+     * Seeds the database, then rebuilds the ISBN filter and the search indexes: the application built them at
+     * startup from the empty database.
+     */
+    public static void seedAndIndex(ConfigurableApplicationContext context, int bookCount) {
+        seed(context, bookCount);
+        context.getBean(IsbnFilter.class).rebuild();
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(AuthorSuggestIndex.class).rebuild();
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int bookCount) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> authors = new ArrayList<>(AUTHOR_COUNT);
+        for (long id = 1; id <= AUTHOR_COUNT; id++) {
+            authors.add(new Object[]{id, "Author " + id});
+        }
+        jdbcTemplate.batchUpdate("insert into author (id, name, version) values (?, ?, 0)", authors);
+
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> links = new ArrayList<>(BATCH_SIZE * 2);
+        for (long id = 1; id <= bookCount; id++) {
+            books.add(new Object[]{id, isbn(id), "Book title " + id, summary(id),
+                    Date.valueOf(LocalDate.of(1900, 1, 1).plusDays(id % 40_000)), (int) (50 + id % 900)});
+            links.add(new Object[]{id, 1 + id % AUTHOR_COUNT});
+            links.add(new Object[]{id, 1 + (id * 7) % AUTHOR_COUNT});
+            if (books.size() == BATCH_SIZE || id == bookCount) {
+                jdbcTemplate.batchUpdate("insert into book (id, isbn, title, summary, publication_date, page_count, version) "
+                        + "values (?, ?, ?, ?, ?, ?, 0)", books);
+                jdbcTemplate.batchUpdate("merge into book_author (book_id, author_id) values (?, ?)", links);
+                books.clear();
+                links.clear();
+            }
+        }
+        // Ids were inserted by hand, move the pooled sequences past them for the JPA inserts
+        jdbcTemplate.execute("alter sequence author_seq restart with " + (AUTHOR_COUNT + ID_ALLOCATION_SIZE));
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (bookCount + ID_ALLOCATION_SIZE));
+    }
+
+    public static String isbn(long id) {
+        return String.format("%013d", id);
+    }
+
+    private static String summary(long id) {
+        return "Generated summary for book " + id + ", long enough to look like a real back cover text "
+                + "about a journey, a family, a war and a love story.";
+    }
+}
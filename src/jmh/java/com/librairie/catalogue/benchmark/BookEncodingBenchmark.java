@@ -0,0 +1,115 @@
+package com.librairie.catalogue.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Body of a 10,000 book page in each negotiated encoding, gzip compressed or not, with the mappers of the
+ * message converters. Summaries are generated from a vocabulary, as long as the seeded ones or as long as the
+ * column allows. The payload size of each encoding is printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookEncodingBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+    private static final String[] WORDS = {"journey", "family", "war", "love", "story", "river", "city", "night",
+            "letter", "secret", "winter", "garden", "king", "sea", "silence", "memory", "the", "of", "and", "a"};
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"130", "5000"})
+    private int summaryLength;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private List<BookDTO> page;
+    private final CountingOutputStream body = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("catalogue.pagination.max-size=" + BOOK_COUNT);
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        objectMapper = switch (format) {
+            case "json" -> context.getBean(ObjectMapper.class);
+            case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        page = context.getBean(BookService.class).getAllBooks(null, BOOK_COUNT).getBooks();
+        Random random = new Random(42);
+        for (BookDTO book : page) {
+            book.setSummary(summary(random, summaryLength));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPayloadSize() {
+        System.out.printf("%d bytes per page%n", body.count / Math.max(1, body.writes));
+        body.count = 0;
+        body.writes = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long encodePage() throws IOException {
+        long before = body.count;
+        if (gzip) {
+            // Tomcat's default compression level
+            try (GZIPOutputStream compressed = new GZIPOutputStream(body, 8192)) {
+                objectMapper.writeValue(compressed, page);
+            }
+        } else {
+            objectMapper.writeValue(body, page);
+        }
+        body.writes++;
+        return body.count - before;
+    }
+
+    private static String summary(Random random, int length) {
+        StringBuilder summary = new StringBuilder(length + 16);
+        while (summary.length() < length) {
+            summary.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return summary.substring(0, length);
+    }
+
+    // Counts the bytes written, the mappers close it after each page
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+        private long writes;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.librairie.catalogue.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page of 1,000 books of {@code GET /api/books}, read and serialized as the controller does, whole or narrowed with
+ * {@code ?fields=}. Summaries are as long as the column allows, the case where skipping them pays the most.
+ * Run with {@code -prof gc} for the allocations of each variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookFieldsBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+    private static final int PAGE_SIZE = 1_000;
+
+    @Param({"", "isbn,title", "isbn,title,authors"})
+    private String fields;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private ObjectMapper objectMapper;
+    private Set<BookField> parsedFields;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("catalogue.pagination.max-size=" + PAGE_SIZE);
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        context.getBean(JdbcTemplate.class).update("update book set summary = repeat('A long back cover text. ', 208)");
+        bookService = context.getBean(BookService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        parsedFields = fields.isEmpty() ? null : BookField.parse(fields);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void readAndEncodePage() throws IOException {
+        List<BookDTO> books = bookService.getAllBooks(null, PAGE_SIZE, parsedFields).getBooks();
+        List<?> body = parsedFields == null ? books : books.stream()
+                .map(book -> BookField.toMap(book, parsedFields))
+                .toList();
+        objectMapper.writeValue(OutputStream.nullOutputStream(), body);
+    }
+}
@@ -0,0 +1,89 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BulkItemResultDTO;
+import com.librairie.catalogue.service.BookBulkService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk ingest of 1,000 new books with two known authors each, with JDBC batching off (a batch size of 1,
+ * one round trip per row as identity ids used to force) and on. Every statement execution, a batch being
+ * one, is a round trip to the database: their number per ingest is printed after each iteration. With
+ * {@code dbLatency}, in milliseconds, each of them also costs what it would on a remote database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookIngestBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+    private static final int AUTHOR_COUNT = 1_000;
+    private static final int INGEST_SIZE = 1_000;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    @Param({"0", "1"})
+    private int dbLatency;
+
+    private ConfigurableApplicationContext context;
+    private SlowDataSource dataSource;
+    private BookBulkService bookBulkService;
+    // Ingested books get ISBNs past the seeded ones
+    private long nextId = BOOK_COUNT + 1;
+    private long roundTrips;
+    private long ingests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AtomicReference<SlowDataSource> slowDataSource = new AtomicReference<>();
+        context = BenchmarkContext.start(slowDataSource, "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        BenchmarkContext.seedAndIndex(context, BOOK_COUNT);
+        bookBulkService = context.getBean(BookBulkService.class);
+        dataSource = slowDataSource.get();
+        dataSource.setLatency(Duration.ofMillis(dbLatency));
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRoundTrips() {
+        System.out.printf("%d round trips per ingest%n", roundTrips / Math.max(1, ingests));
+        roundTrips = 0;
+        ingests = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BulkItemResultDTO> ingestBooks() {
+        List<BookDTO> books = new ArrayList<>(INGEST_SIZE);
+        for (int i = 0; i < INGEST_SIZE; i++) {
+            long id = nextId++;
+            books.add(BookDTO.builder()
+                    .isbn(BenchmarkContext.isbn(id))
+                    .title("Ingested book " + id)
+                    .summary("Ingested by the benchmark")
+                    .publicationDate(LocalDate.of(2020, 1, 1))
+                    .pageCount(200)
+                    .authors(List.of("Author " + (1 + id % AUTHOR_COUNT), "Author " + (1 + (id * 7) % AUTHOR_COUNT)))
+                    .build());
+        }
+        long before = dataSource.roundTrips();
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(books);
+        roundTrips += dataSource.roundTrips() - before;
+        ingests++;
+        return results;
+    }
+}
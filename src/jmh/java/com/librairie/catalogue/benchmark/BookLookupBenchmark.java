@@ -0,0 +1,51 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of {@code GET /api/books/{isbn}} with and without the book cache. Sample time
+ * mode reports the percentiles, p99 included, on top of the average.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class BookLookupBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("catalogue.book-cache.enabled=" + cache);
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        bookService = context.getBean(BookService.class);
+        // Measure the steady state, every book has been read once already
+        for (long id = 1; id <= BOOK_COUNT; id++) {
+            bookService.getBookByIsbn(BenchmarkContext.isbn(id));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO getBookByIsbn() {
+        return bookService.getBookByIsbn(BenchmarkContext.isbn(1 + ThreadLocalRandom.current().nextInt(BOOK_COUNT)));
+    }
+}
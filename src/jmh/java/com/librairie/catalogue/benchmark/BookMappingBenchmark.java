@@ -0,0 +1,81 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.mapper.AuthorMapper;
+import com.librairie.catalogue.mapper.AuthorMapperImpl;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.mapper.BookMapperImpl;
+import com.librairie.catalogue.model.Author;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.BookDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a page of books and of the author lists, the generated MapStruct mappers being
+ * used as is, without any Spring context nor database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookMappingBenchmark {
+    private static final int AUTHOR_COUNT = 1_000;
+
+    // Default and maximum page sizes
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+    private final AuthorMapper authorMapper = new AuthorMapperImpl();
+    private List<Author> authors;
+    private List<Book> books;
+    private Set<Author> bookAuthors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        authors = new ArrayList<>(AUTHOR_COUNT);
+        for (long id = 1; id <= AUTHOR_COUNT; id++) {
+            authors.add(Author.builder().id(id).name("Author " + id).version(0L).build());
+        }
+        books = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            books.add(Book.builder()
+                    .id(id)
+                    .isbn(BenchmarkContext.isbn(id))
+                    .title("Book title " + id)
+                    .summary("Generated summary for book " + id + ", long enough to look like a real back cover text.")
+                    .publicationDate(LocalDate.of(1900, 1, 1).plusDays(id))
+                    .pageCount((int) (50 + id % 900))
+                    // Same authors per book as the seeded database
+                    .authors(new HashSet<>(List.of(authors.get((int) (id % AUTHOR_COUNT)),
+                            authors.get((int) ((id * 7) % AUTHOR_COUNT)))))
+                    .version(0L)
+                    .build());
+        }
+        bookAuthors = new HashSet<>(authors.subList(0, 3));
+    }
+
+    @Benchmark
+    public List<BookDTO> booksToBookDTOs() {
+        return bookMapper.booksToBookDTOs(books);
+    }
+
+    @Benchmark
+    public List<String> mapAuthorsToNames() {
+        return BookMapper.mapAuthorsToNames(bookAuthors);
+    }
+
+    @Benchmark
+    public List<AuthorDTO> authorsToAuthorDTOs() {
+        return authorMapper.authorsToAuthorDTOs(authors.subList(0, pageSize));
+    }
+}
@@ -0,0 +1,69 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.service.BookService;
+import com.librairie.catalogue.service.ContinuationToken;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first and of the 10,000th page of {@code GET /api/books}. Keyset pagination should
+ * stay flat while the offset based variant, kept here as a reference, degrades with the page number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookPaginationBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int BOOK_COUNT = 10_000 * PAGE_SIZE;
+
+    @Param({"1", "10000"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private BookMapper bookMapper;
+    private TransactionTemplate transactionTemplate;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        bookService = context.getBean(BookService.class);
+        bookRepository = context.getBean(BookRepository.class);
+        bookMapper = context.getBean(BookMapper.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        // Seeded ids are contiguous, so the last id of the previous page is known upfront
+        cursor = page == 1 ? null : ContinuationToken.encode((page - 1L) * PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookPageDTO keyset() {
+        return bookService.getAllBooks(cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookDTO> offset() {
+        return transactionTemplate.execute(status -> bookMapper.booksToBookDTOs(
+                bookRepository.findAll(PageRequest.of(page - 1, PAGE_SIZE, Sort.by("id"))).getContent()));
+    }
+}
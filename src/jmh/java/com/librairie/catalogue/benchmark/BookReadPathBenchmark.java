@@ -0,0 +1,81 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.mapper.AuthorMapper;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Read-only transactions of the list endpoints: a page of books and the 1,000 authors, loaded as managed entities
+ * then mapped by MapStruct, as before, or read straight into DTOs. Run with {@code -prof gc} for the allocations,
+ * the entities and their snapshots being the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookReadPathBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private AuthorRepository authorRepository;
+    private BookMapper bookMapper;
+    private AuthorMapper authorMapper;
+    private TransactionTemplate readOnlyTransaction;
+    private List<String> isbns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        bookRepository = context.getBean(BookRepository.class);
+        authorRepository = context.getBean(AuthorRepository.class);
+        bookMapper = context.getBean(BookMapper.class);
+        authorMapper = context.getBean(AuthorMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        isbns = LongStream.rangeClosed(1, pageSize).mapToObj(BenchmarkContext::isbn).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookDTO> booksAsEntities() {
+        return readOnlyTransaction.execute(status -> bookMapper.booksToBookDTOs(bookRepository.findByIsbnIn(isbns)));
+    }
+
+    @Benchmark
+    public List<BookDTO> booksAsDTOs() {
+        return readOnlyTransaction.execute(status -> bookRepository.findFieldsByIsbnIn(isbns, BookField.ALL));
+    }
+
+    @Benchmark
+    public List<AuthorDTO> authorsAsEntities() {
+        return readOnlyTransaction.execute(status -> authorMapper.authorsToAuthorDTOs(authorRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<AuthorDTO> authorsAsDTOs() {
+        return readOnlyTransaction.execute(status -> authorRepository.findAllAsDTOs());
+    }
+}
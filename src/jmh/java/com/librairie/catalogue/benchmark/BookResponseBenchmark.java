@@ -0,0 +1,76 @@
+package com.librairie.catalogue.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of producing the body of {@code GET /api/books/{isbn}} for a cached book: the cached encoding written
+ * as is, against the cached book serialized on every hit. Run with {@code -prof gc} to get the bytes
+ * allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookResponseBenchmark {
+    private static final int BOOK_COUNT = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private ObjectMapper objectMapper;
+    private OutputStream responseBody;
+    // Formatted upfront, String.format would otherwise dominate the allocations
+    private final String[] isbns = new String[BOOK_COUNT];
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, BOOK_COUNT);
+        bookService = context.getBean(BookService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        responseBody = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                blackhole.consume(bytes);
+            }
+        };
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            isbns[i] = BenchmarkContext.isbn(i + 1);
+            bookService.getEncodedBook(isbns[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void writeEncoded() throws IOException {
+        responseBody.write(bookService.getEncodedBook(randomIsbn()).json());
+    }
+
+    @Benchmark
+    public void serializeCached() throws IOException {
+        objectMapper.writeValue(responseBody, bookService.getBookByIsbn(randomIsbn()));
+    }
+
+    private String randomIsbn() {
+        return isbns[ThreadLocalRandom.current().nextInt(BOOK_COUNT)];
+    }
+}
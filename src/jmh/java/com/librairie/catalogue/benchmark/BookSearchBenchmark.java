@@ -0,0 +1,68 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.search.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked search over a generated catalogue of a million books. Words are drawn from a Zipf-like
+ * distribution so that queries mix frequent and rare terms, like real titles and summaries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BookSearchBenchmark {
+    private static final int BOOK_COUNT = 1_000_000;
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int TITLE_WORDS = 4;
+    private static final int SUMMARY_WORDS = 30;
+    private static final Set<InvertedIndex.Field> ALL_FIELDS = EnumSet.allOf(InvertedIndex.Field.class);
+
+    // Ranks of the words in the vocabulary, rank 1 being the most frequent one
+    @Param({"1000 20000", "50 200", "10 20 30"})
+    private String ranks;
+
+    private InvertedIndex index;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new InvertedIndex(2.0);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            index.put(BenchmarkContext.isbn(i), words(random, TITLE_WORDS), words(random, SUMMARY_WORDS));
+        }
+        StringBuilder words = new StringBuilder();
+        for (String rank : ranks.split(" ")) {
+            words.append(word(Integer.parseInt(rank))).append(' ');
+        }
+        query = words.toString();
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> search() {
+        return index.search(query, ALL_FIELDS, 0, 20);
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Inverse transform of a 1/rank distribution
+            int rank = (int) Math.floor(Math.pow(VOCABULARY_SIZE + 1.0, random.nextDouble()));
+            text.append(word(rank)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36);
+    }
+}
@@ -0,0 +1,83 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.service.BookSearchService;
+import com.librairie.catalogue.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service calls against a seeded H2 database: creating a book with two authors, one new and one already
+ * known, and the searches by title, by author and on combined criteria.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+    private static final int BOOK_COUNT = 100_000;
+    private static final int AUTHOR_COUNT = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BookSearchService bookSearchService;
+    // Created books get ISBNs past the seeded ones
+    private final AtomicLong nextId = new AtomicLong(BOOK_COUNT + 1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seedAndIndex(context, BOOK_COUNT);
+        bookService = context.getBean(BookService.class);
+        bookSearchService = context.getBean(BookSearchService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookDTO createBook() {
+        long id = nextId.getAndIncrement();
+        return bookService.createBook(BookDTO.builder()
+                .isbn(BenchmarkContext.isbn(id))
+                .title("Created book " + id)
+                .summary("Created by the benchmark")
+                .publicationDate(LocalDate.of(2020, 1, 1))
+                .pageCount(200)
+                .authors(List.of("Author " + (1 + id % AUTHOR_COUNT), "New author " + id))
+                .build());
+    }
+
+    // A search index hit, the ranked page is hydrated from the database
+    @Benchmark
+    public BookPageDTO searchBooksByTitle() {
+        return bookService.searchBooks("title " + (1 + ThreadLocalRandom.current().nextInt(BOOK_COUNT)), null, null, null);
+    }
+
+    @Benchmark
+    public BookPageDTO searchBooksByAuthor() {
+        return bookService.searchBooks(null, "Author " + (1 + ThreadLocalRandom.current().nextInt(AUTHOR_COUNT)), null, null);
+    }
+
+    @Benchmark
+    public BookPageDTO searchBooksOnCombinedCriteria() {
+        int author = 1 + ThreadLocalRandom.current().nextInt(AUTHOR_COUNT);
+        return bookSearchService.search(BookSearchCriteria.builder()
+                .author("Author " + author)
+                .publishedFrom(LocalDate.of(1950, 1, 1))
+                .maxPages(500)
+                .build(), null, null);
+    }
+}
@@ -0,0 +1,77 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.cache.IsbnFilter;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.validation.UniqueISBNValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validation of an incoming book: the ISBN regular expression alone, the unique ISBN check for a known and
+ * an unknown ISBN, the latter being answered by the ISBN filter, and the whole bean validation of a new book
+ * as done by {@code POST /api/books}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookValidationBenchmark {
+    private static final int BOOK_COUNT = 100_000;
+    private static final Pattern ISBN_PATTERN = Pattern.compile(BookDTO.ISBN_REGEX);
+
+    private ConfigurableApplicationContext context;
+    private UniqueISBNValidator uniqueIsbnValidator;
+    private Validator validator;
+    // Formatted upfront, String.format would otherwise dominate the measures
+    private final String[] knownIsbns = new String[1_024];
+    private final String[] unknownIsbns = new String[1_024];
+    private final BookDTO[] newBooks = new BookDTO[1_024];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seedAndIndex(context, BOOK_COUNT);
+        uniqueIsbnValidator = new UniqueISBNValidator(context.getBean(BookRepository.class), context.getBean(IsbnFilter.class));
+        validator = context.getBean(Validator.class);
+        for (int i = 0; i < knownIsbns.length; i++) {
+            knownIsbns[i] = BenchmarkContext.isbn(1 + (long) i * (BOOK_COUNT / knownIsbns.length));
+            unknownIsbns[i] = BenchmarkContext.isbn(BOOK_COUNT + 1 + i);
+            newBooks[i] = BookDTO.builder().isbn(unknownIsbns[i]).title("New book " + i).pageCount(100).build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean isbnPattern() {
+        return ISBN_PATTERN.matcher(unknownIsbns[ThreadLocalRandom.current().nextInt(unknownIsbns.length)]).matches();
+    }
+
+    @Benchmark
+    public boolean uniqueIsbnKnown() {
+        return uniqueIsbnValidator.isValid(knownIsbns[ThreadLocalRandom.current().nextInt(knownIsbns.length)], null);
+    }
+
+    @Benchmark
+    public boolean uniqueIsbnUnknown() {
+        return uniqueIsbnValidator.isValid(unknownIsbns[ThreadLocalRandom.current().nextInt(unknownIsbns.length)], null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BookDTO>> validateNewBook() {
+        return validator.validate(newBooks[ThreadLocalRandom.current().nextInt(newBooks.length)]);
+    }
+}
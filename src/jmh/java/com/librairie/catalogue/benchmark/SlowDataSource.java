@@ -0,0 +1,104 @@
+package com.librairie.catalogue.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Data source adding a fixed latency to every statement execution, the connection being held meanwhile, as
+ * a remote database under load would. The delay is a {@link Thread#sleep}, outside of the H2 driver and its
+ * {@code synchronized} blocks, so that it parks a virtual thread instead of pinning its carrier.
+ * <p>
+ * Executions are counted as well, each one being a round trip to a remote database: a JDBC batch is one.
+ */
+final class SlowDataSource extends DelegatingDataSource {
+    private final LongAdder roundTrips = new LongAdder();
+    private volatile Duration latency = Duration.ZERO;
+
+    SlowDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Initializer wrapping the application's data source, the wrapper being handed to {@code target}.
+     */
+    static ApplicationContextInitializer<ConfigurableApplicationContext> wrap(AtomicReference<SlowDataSource> target) {
+        return applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && target.get() == null) {
+                    target.set(new SlowDataSource(dataSource));
+                    return target.get();
+                }
+                return bean;
+            }
+        });
+    }
+
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    long roundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return slow(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return slow(super.getConnection(username, password));
+    }
+
+    private Connection slow(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (result) {
+                        case CallableStatement statement -> slow(statement, CallableStatement.class);
+                        case PreparedStatement statement -> slow(statement, PreparedStatement.class);
+                        case Statement statement -> slow(statement, Statement.class);
+                        case null, default -> result;
+                    };
+                });
+    }
+
+    private <S extends Statement> S slow(S statement, Class<S> type) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        roundTrips.increment();
+                        Duration delay = latency;
+                        if (!delay.isZero()) {
+                            Thread.sleep(delay);
+                        }
+                    }
+                    return invoke(statement, method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.CatalogueApplication;
+import com.librairie.catalogue.service.BookService;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Closed-loop HTTP load test of the request thread models: the application is served by Tomcat on platform
+ * threads, then on virtual threads, against an H2 database made slow by {@link SlowDataSource}. Every client
+ * sends its next request as soon as it got the previous answer. Most requests read a cached book, the others
+ * the first page of {@code GET /api/books}, which always queries the database.
+ * <p>
+ * Each mode runs in its own JVM, started with the same options. Arguments are {@code name=value} pairs
+ * overriding {@link #DEFAULTS}. Latencies are measured by the clients: being closed-loop, they miss the
+ * requests a stalled client did not get to send.
+ */
+public final class ThreadModelLoadTest {
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("modes", "platform,virtual"),
+            Map.entry("clients", "50,500,5000"),
+            // Seconds
+            Map.entry("warmup", "5"),
+            // Run once per mode before the measured runs, the first mode would otherwise pay for the JIT compilation
+            Map.entry("jit-warmup", "10"),
+            Map.entry("duration", "15"),
+            // Milliseconds added to every statement
+            Map.entry("db-latency", "20"),
+            // Share of the requests going to the database
+            Map.entry("db-ratio", "0.1"),
+            Map.entry("pool-size", "10"),
+            Map.entry("tomcat-threads", "200"),
+            Map.entry("books", "10000"),
+            Map.entry("hot-books", "1000"),
+            Map.entry("result", "target/load-test-result.csv"));
+
+    // Set on the forked JVMs, their results are printed by the parent one
+    private static final String FORKED = "catalogue.load-test.forked";
+    private static final String HEADER = "mode,clients,req/s,p50 ms,p99 ms,p99.9 ms,max ms,errors";
+
+    private ThreadModelLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Started from a main method, devtools would restart the application in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(option[0], option[1]);
+        }
+
+        String[] modes = options.get("modes").split(",");
+        List<String> rows = new ArrayList<>();
+        rows.add(HEADER);
+        if (modes.length == 1) {
+            rows.addAll(measure(modes[0], options));
+        } else {
+            // One JVM per mode, a mode measured after another one would run on already compiled code
+            for (String mode : modes) {
+                rows.addAll(fork(mode, args));
+            }
+        }
+        Path result = Path.of(options.get("result"));
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        Files.write(result, rows);
+        for (String row : Boolean.getBoolean(FORKED) ? List.<String>of() : rows) {
+            System.out.printf("%-8s %7s %10s %9s %9s %9s %9s %7s%n", (Object[]) row.split(","));
+        }
+    }
+
+    private static List<String> measure(String mode, Map<String, String> options) throws InterruptedException {
+        List<String> rows = new ArrayList<>();
+        try (ConfigurableApplicationContext context = start(mode.equals("virtual"), options)) {
+            run(context, mode, 50, Long.parseLong(options.get("jit-warmup")), 1, options);
+            for (String clients : options.get("clients").split(",")) {
+                rows.add(run(context, mode, Integer.parseInt(clients),
+                        Long.parseLong(options.get("warmup")), Long.parseLong(options.get("duration")), options));
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> fork(String mode, String[] args) throws IOException, InterruptedException {
+        Path result = Files.createTempFile("load-test-" + mode, ".csv");
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElseThrow());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-D" + FORKED + "=true");
+        command.addAll(List.of("-classpath", System.getProperty("java.class.path"), ThreadModelLoadTest.class.getName()));
+        command.addAll(Arrays.asList(args));
+        command.addAll(List.of("modes=" + mode, "result=" + result));
+        int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Load test of the " + mode + " threads failed with exit code " + exitCode);
+        }
+        List<String> rows = Files.readAllLines(result);
+        Files.delete(result);
+        return rows.subList(1, rows.size());
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads, Map<String, String> options) {
+        AtomicReference<SlowDataSource> slowDataSource = new AtomicReference<>();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CatalogueApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.SERVLET)
+                .initializers(SlowDataSource.wrap(slowDataSource))
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=" + options.get("tomcat-threads"),
+                        // The clients all connect at once
+                        "--server.tomcat.accept-count=10000",
+                        "--spring.datasource.hikari.maximum-pool-size=" + options.get("pool-size"),
+                        "--spring.datasource.hikari.connection-timeout=60000");
+        BenchmarkContext.seedAndIndex(context, Integer.parseInt(options.get("books")));
+        BookService bookService = context.getBean(BookService.class);
+        for (int i = 1; i <= Integer.parseInt(options.get("hot-books")); i++) {
+            bookService.getEncodedBook(BenchmarkContext.isbn(i));
+        }
+        slowDataSource.get().setLatency(Duration.ofMillis(Long.parseLong(options.get("db-latency"))));
+        return context;
+    }
+
+    private static String run(ConfigurableApplicationContext context, String mode, int clientCount, long warmup,
+                              long duration, Map<String, String> options) throws InterruptedException {
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        HttpRequest[] bookRequests = new HttpRequest[Integer.parseInt(options.get("hot-books"))];
+        for (int i = 0; i < bookRequests.length; i++) {
+            bookRequests[i] = request(port, "/api/books/" + BenchmarkContext.isbn(i + 1));
+        }
+        HttpRequest pageRequest = request(port, "/api/books?size=20");
+        double dbRatio = Double.parseDouble(options.get("db-ratio"));
+
+        Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+        AtomicLong errors = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Histogram histogram;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).build()) {
+            for (int i = 0; i < clientCount; i++) {
+                executor.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        HttpRequest request = random.nextDouble() < dbRatio
+                                ? pageRequest : bookRequests[random.nextInt(bookRequests.length)];
+                        long start = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        recorder.recordValue(Math.min(System.nanoTime() - start, TimeUnit.MINUTES.toNanos(1)));
+                    }
+                });
+            }
+            Thread.sleep(Duration.ofSeconds(warmup));
+            recorder.reset();
+            errors.set(0);
+            Thread.sleep(Duration.ofSeconds(duration));
+            histogram = recorder.getIntervalHistogram();
+            running.set(false);
+
+            return String.join(",", Arrays.asList(mode, String.valueOf(clientCount),
+                    String.format(Locale.ROOT, "%.0f", histogram.getTotalCount() / (double) duration),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()),
+                    String.valueOf(errors.get())));
+        }
+    }
+
+    private static HttpRequest request(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
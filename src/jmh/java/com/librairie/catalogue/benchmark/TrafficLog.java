@@ -0,0 +1,142 @@
+package com.librairie.catalogue.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Request log replayed by {@link TrafficReplay}, one request per line: the method, a space, the path with its
+ * query string and, for writes, a tab followed by the JSON body. Blank lines and lines starting with {@code #}
+ * are skipped. A production access log only needs to be reduced to this format to be replayed.
+ */
+final class TrafficLog {
+    private static final Pattern ISBN_SEGMENT = Pattern.compile("/\\w{10}(\\w{3})?(?=/|$)");
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final String BOOK_BY_ID = "/api/books/{id}";
+    private static final int AUTHOR_COUNT = 1_000;
+    // Replayed without waiting for the answers, a write could otherwise overtake the creation of its book
+    private static final int UNSETTLED_BOOKS = 100;
+
+    record Request(String method, String path, String body) {
+
+        /**
+         * Path template the request is reported under, ex. {@code GET /api/books/{isbn}}.
+         */
+        String endpoint() {
+            int query = path.indexOf('?');
+            String template = query < 0 ? path : path.substring(0, query);
+            template = ID_SEGMENT.matcher(template).replaceAll("/{id}");
+            template = ISBN_SEGMENT.matcher(template).replaceAll("/{isbn}");
+            // ISBNs may be only made of digits
+            if (template.startsWith(BOOK_BY_ID)) {
+                template = "/api/books/{isbn}" + template.substring(BOOK_BY_ID.length());
+            }
+            return method + " " + template;
+        }
+    }
+
+    private TrafficLog() {
+    }
+
+    static List<Request> read(Path log) throws IOException {
+        List<Request> requests = new ArrayList<>();
+        for (String line : Files.readAllLines(log)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            int tab = line.indexOf('\t');
+            if (space < 0) {
+                throw new IllegalArgumentException("Expected a method and a path: " + line);
+            }
+            requests.add(tab < 0
+                    ? new Request(line.substring(0, space), line.substring(space + 1).strip(), null)
+                    : new Request(line.substring(0, space), line.substring(space + 1, tab).strip(), line.substring(tab + 1)));
+        }
+        return requests;
+    }
+
+    /**
+     * Writes a synthetic log against a database seeded by {@link BenchmarkContext#seed}: reads favour a hot set
+     * of books, created books are updated then deleted some requests later.
+     */
+    static void generate(Path log, int count, int bookCount, long seed) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Random random = new Random(seed);
+        List<String> createdIsbns = new ArrayList<>();
+        long nextId = bookCount + 1L;
+        List<String> lines = new ArrayList<>(count + 1);
+        lines.add("# " + count + " requests generated for " + bookCount + " seeded books, seed " + seed);
+        while (lines.size() <= count) {
+            int draw = random.nextInt(100);
+            if (draw < 55) {
+                // Squared to favour the first books, a few of them making most of the reads
+                double hot = random.nextDouble();
+                lines.add("GET /api/books/" + BenchmarkContext.isbn(1 + (long) (hot * hot * bookCount)));
+            } else if (draw < 65) {
+                lines.add("GET /api/books/search?q=" + encode("title " + (1 + random.nextInt(bookCount))));
+            } else if (draw < 70) {
+                lines.add("GET /api/books/search?author=" + encode(author(random)));
+            } else if (draw < 73) {
+                lines.add("GET /api/books/search?author=" + encode(author(random)) + "&publishedFrom=1950-01-01&maxPages=500");
+            } else if (draw < 78) {
+                lines.add("GET /api/authors/suggest?prefix=" + encode("author " + (1 + random.nextInt(99))));
+            } else if (draw < 82) {
+                lines.add("GET /api/authors/" + (1 + random.nextInt(AUTHOR_COUNT)));
+            } else if (draw < 84) {
+                lines.add("GET /api/books?size=20");
+            } else if (draw < 91 || createdIsbns.size() <= UNSETTLED_BOOKS) {
+                String isbn = BenchmarkContext.isbn(nextId++);
+                createdIsbns.add(isbn);
+                lines.add("POST /api/books\t" + json(objectMapper, book(isbn, "Replayed book " + isbn, random)));
+            } else if (draw < 97) {
+                String isbn = createdIsbns.get(random.nextInt(createdIsbns.size() - UNSETTLED_BOOKS));
+                lines.add("PUT /api/books\t" + json(objectMapper, book(isbn, "Replayed book " + isbn + " updated", random)));
+            } else {
+                String isbn = createdIsbns.remove(random.nextInt(createdIsbns.size() - UNSETTLED_BOOKS));
+                lines.add("DELETE /api/books/" + isbn);
+            }
+        }
+        Files.createDirectories(log.toAbsolutePath().getParent());
+        Files.write(log, lines);
+    }
+
+    private static Map<String, Object> book(String isbn, String title, Random random) {
+        Map<String, Object> book = new LinkedHashMap<>();
+        book.put("isbn", isbn);
+        book.put("title", title);
+        book.put("authors", List.of(author(random)));
+        book.put("publicationDate", "2020-01-01");
+        book.put("summary", "Replayed by the traffic harness");
+        book.put("pageCount", 100 + random.nextInt(400));
+        return book;
+    }
+
+    private static String author(Random random) {
+        return "Author " + (1 + random.nextInt(AUTHOR_COUNT));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String json(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.librairie.catalogue.benchmark;
+
+import com.librairie.catalogue.CatalogueApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop replay of a {@link TrafficLog} against the application, served by Tomcat on an H2 database seeded
+ * with {@code books} books, or against the one running at {@code url}. Without a {@code log}, a synthetic one
+ * is generated first.
+ * <p>
+ * The requests are sent at a fixed rate, whatever the answers: the n-th one is due at {@code n / rate} seconds
+ * and its latency is counted from that instant, not from when it was actually sent. A stalled server, or a
+ * client falling behind, then shows in the percentiles instead of silently lowering the load, the coordinated
+ * omission of a closed-loop client. Latencies are reported per endpoint, statuses other than 2xx and 304 are
+ * counted as errors. Arguments are {@code name=value} pairs overriding {@link #DEFAULTS}.
+ */
+public final class TrafficReplay {
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            // Request log, generated in target/traffic.log when empty
+            Map.entry("log", ""),
+            // Generated requests
+            Map.entry("requests", "6000"),
+            Map.entry("seed", "42"),
+            // Requests per second
+            Map.entry("rate", "50"),
+            // Seconds replayed before the latencies are recorded
+            Map.entry("warmup", "10"),
+            Map.entry("books", "10000"),
+            // Running application to replay against, started on H2 when empty
+            Map.entry("url", ""),
+            Map.entry("result", "target/replay-result.csv"));
+
+    private static final String HEADER = "endpoint,count,p50 ms,p90 ms,p99 ms,p99.9 ms,max ms,errors";
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private TrafficReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Started from a main method, devtools would restart the application in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(option[0], option[1]);
+        }
+
+        Path log = Path.of(options.get("log").isEmpty() ? "target/traffic.log" : options.get("log"));
+        if (options.get("log").isEmpty()) {
+            TrafficLog.generate(log, Integer.parseInt(options.get("requests")), Integer.parseInt(options.get("books")),
+                    Long.parseLong(options.get("seed")));
+        }
+        List<TrafficLog.Request> requests = TrafficLog.read(log);
+
+        List<String> rows;
+        if (options.get("url").isEmpty()) {
+            try (ConfigurableApplicationContext context = start(Integer.parseInt(options.get("books")))) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                rows = replay("http://localhost:" + port, requests, options);
+            }
+        } else {
+            rows = replay(options.get("url"), requests, options);
+        }
+        Path result = Path.of(options.get("result"));
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        Files.write(result, rows);
+        for (String row : rows) {
+            System.out.printf("%-32s %7s %9s %9s %9s %9s %9s %7s%n", (Object[]) row.split(","));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int bookCount) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CatalogueApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        // A few client connections carry all the requests, Tomcat would close them every 100
+                        "--server.tomcat.max-keep-alive-requests=-1");
+        BenchmarkContext.seedAndIndex(context, bookCount);
+        return context;
+    }
+
+    private static List<String> replay(String baseUrl, List<TrafficLog.Request> log, Map<String, String> options)
+            throws InterruptedException {
+        HttpRequest[] requests = new HttpRequest[log.size()];
+        String[] endpoints = new String[log.size()];
+        Map<String, Histogram> histograms = new TreeMap<>();
+        Map<String, LongAdder> errors = new HashMap<>();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = request(baseUrl, log.get(i));
+            endpoints[i] = log.get(i).endpoint();
+            histograms.computeIfAbsent(endpoints[i], endpoint -> new ConcurrentHistogram(HIGHEST_LATENCY, 3));
+            errors.computeIfAbsent(endpoints[i], endpoint -> new LongAdder());
+        }
+
+        long interval = Math.round(TimeUnit.SECONDS.toNanos(1) / Double.parseDouble(options.get("rate")));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        long start;
+        long end;
+        // The client has its own threads, they must outlive the shutdown of the request ones
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            start = System.nanoTime();
+            for (int i = 0; i < requests.length; i++) {
+                long intended = start + i * interval;
+                for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                HttpRequest request = requests[i];
+                String endpoint = endpoints[i];
+                boolean recorded = intended - start >= warmup;
+                // Not waiting for the previous answers, each request has its own virtual thread
+                executor.execute(() -> {
+                    String failure;
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        failure = status / 100 == 2 || status == 304 ? null : "status " + status;
+                    } catch (IOException e) {
+                        failure = e.toString();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (recorded) {
+                        histograms.get(endpoint).recordValue(Math.min(System.nanoTime() - intended, HIGHEST_LATENCY));
+                        if (failure != null) {
+                            errors.get(endpoint).increment();
+                        }
+                    }
+                    // Only the first failure of an endpoint, a saturated server would flood the output
+                    if (failure != null && failed.add(endpoint)) {
+                        System.out.println(request.method() + " " + request.uri() + " failed: " + failure);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            end = System.nanoTime();
+        }
+        System.out.printf(Locale.ROOT, "Replayed %d requests in %.1f s%n", requests.length, (end - start) / 1e9);
+
+        List<String> rows = new ArrayList<>();
+        rows.add(HEADER);
+        Histogram all = new Histogram(HIGHEST_LATENCY, 3);
+        long allErrors = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            long endpointErrors = errors.get(entry.getKey()).sum();
+            rows.add(row(entry.getKey(), entry.getValue(), endpointErrors));
+            all.add(entry.getValue());
+            allErrors += endpointErrors;
+        }
+        rows.add(row("all", all, allErrors));
+        return rows;
+    }
+
+    private static HttpRequest request(String baseUrl, TrafficLog.Request request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.path()))
+                .timeout(Duration.ofSeconds(30));
+        if (request.body() == null) {
+            return builder.method(request.method(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(request.method(), HttpRequest.BodyPublishers.ofString(request.body()))
+                .build();
+    }
+
+    private static String row(String endpoint, Histogram histogram, long errors) {
+        return String.join(",", endpoint, String.valueOf(histogram.getTotalCount()),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                String.valueOf(errors));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,204 @@
+package com.librairie.catalogue.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librairie.catalogue.config.AuthorCacheProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the authors resolved by name, keyed by the lower cased name. Caffeine evicts with
+ * W-TinyLFU. Loads run outside of the cache's locks, an empty future is put in the cache first as {@link Memoizer}
+ * does.
+ * <p>
+ * The loader runs in the caller's transaction and may insert the unknown authors there: the loaded authors are
+ * only shared once that transaction commits, the cache must never hand out the id of a row that could still be
+ * rolled back. Meanwhile concurrent lookups of the same names wait for the commit, up to
+ * {@code catalogue.author-cache.load-wait-timeout}, then load the authors themselves. A rollback drops the loaded
+ * authors, their waiters load them again.
+ */
+@Component
+public class AuthorIdCache {
+
+    // The version only tells Hibernate the detached author is persistent, it is never checked
+    public record AuthorRef(Long id, String name, Long version) {
+    }
+
+    private final AsyncCache<String, AuthorRef> cache;
+    private final Duration loadWaitTimeout;
+
+    public AuthorIdCache(AuthorCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .recordStats()
+                .buildAsync();
+        this.loadWaitTimeout = properties.getLoadWaitTimeout();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authorIds");
+    }
+
+    public AuthorRef get(String name, Function<String, AuthorRef> loader) {
+        return getAll(List.of(name), names -> Map.of(names.getFirst(), loader.apply(names.getFirst()))).get(name);
+    }
+
+    /**
+     * Authors of the given names, keyed by those names. The names not cached are loaded together, the loader
+     * getting a single spelling per author and returning the authors keyed by the names it was given.
+     */
+    public Map<String, AuthorRef> getAll(Collection<String> names, Function<List<String>, Map<String, AuthorRef>> loader) {
+        Map<String, String> namesByKey = new HashMap<>();
+        names.forEach(name -> namesByKey.putIfAbsent(key(name), name));
+        TransactionLoads transactionLoads = currentTransactionLoads();
+        Map<String, AuthorRef> refsByKey = new HashMap<>(namesByKey.size());
+        Map<String, CompletableFuture<AuthorRef>> created = new HashMap<>();
+        Map<String, CompletableFuture<AuthorRef>> pending = new HashMap<>();
+        for (String key : namesByKey.keySet()) {
+            AuthorRef own = transactionLoads == null ? null : transactionLoads.refs.get(key);
+            if (own != null) {
+                // Still pending for the others, the transaction must not wait for itself
+                refsByKey.put(key, own);
+                continue;
+            }
+            CompletableFuture<AuthorRef> future = new CompletableFuture<>();
+            CompletableFuture<AuthorRef> existing = cache.get(key, (k, executor) -> future);
+            (existing == future ? created : pending).put(key, existing);
+        }
+
+        if (!created.isEmpty()) {
+            Map<String, AuthorRef> loaded;
+            try {
+                loaded = load(created.keySet(), namesByKey, loader);
+            } catch (RuntimeException | Error e) {
+                created.forEach(this::discard);
+                throw e;
+            }
+            created.forEach((key, future) -> {
+                AuthorRef ref = loaded.get(key);
+                refsByKey.put(key, ref);
+                if (transactionLoads == null) {
+                    future.complete(ref);
+                } else {
+                    transactionLoads.add(key, ref, future);
+                }
+            });
+        }
+
+        // Waited for once the others are loaded, two transactions each loading a part of the names of the other
+        // still wait for each other until the timeout
+        long deadline = System.nanoTime() + loadWaitTimeout.toNanos();
+        Set<String> unresolved = new HashSet<>();
+        pending.forEach((key, future) -> {
+            try {
+                refsByKey.put(key, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (CancellationException | ExecutionException | TimeoutException e) {
+                unresolved.add(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for an author to be loaded", e);
+            }
+        });
+        if (!unresolved.isEmpty()) {
+            // For this transaction only, the cache entries belong to the loads waited for
+            Map<String, AuthorRef> loaded = load(unresolved, namesByKey, loader);
+            refsByKey.putAll(loaded);
+            if (transactionLoads != null) {
+                transactionLoads.refs.putAll(loaded);
+            }
+        }
+
+        Map<String, AuthorRef> refs = new HashMap<>(names.size());
+        names.forEach(name -> refs.put(name, refsByKey.get(key(name))));
+        return refs;
+    }
+
+    public void invalidate(String name) {
+        cache.synchronous().invalidate(key(name));
+    }
+
+    // Invalidated once the change is visible to the loaders, fallback for writes made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.previousName() != null) {
+            invalidate(event.previousName());
+        }
+        if (event.type() != AuthorChangedEvent.ChangeType.CREATED) {
+            invalidate(event.name());
+        }
+    }
+
+    private static Map<String, AuthorRef> load(Set<String> keys, Map<String, String> namesByKey,
+                                               Function<List<String>, Map<String, AuthorRef>> loader) {
+        Map<String, AuthorRef> loaded = loader.apply(keys.stream().map(namesByKey::get).toList());
+        Map<String, AuthorRef> loadedByKey = new HashMap<>(loaded.size());
+        loaded.forEach((name, ref) -> loadedByKey.put(key(name), ref));
+        keys.forEach(key -> Objects.requireNonNull(loadedByKey.get(key), () -> "No author loaded for " + key));
+        return loadedByKey;
+    }
+
+    // A failed load is cancelled rather than completed exceptionally, Caffeine would log every failure
+    private void discard(String key, CompletableFuture<AuthorRef> future) {
+        cache.asMap().remove(key, future);
+        future.cancel(false);
+    }
+
+    // Null outside of a transaction, the loads are then shared as soon as they are done
+    private TransactionLoads currentTransactionLoads() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        TransactionLoads loads = (TransactionLoads) TransactionSynchronizationManager.getResource(this);
+        if (loads == null) {
+            loads = new TransactionLoads();
+            TransactionSynchronizationManager.bindResource(this, loads);
+            TransactionSynchronizationManager.registerSynchronization(loads);
+        }
+        return loads;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Authors loaded by a transaction: known to it right away, to the others once it commits
+    private final class TransactionLoads implements TransactionSynchronization {
+        private final Map<String, AuthorRef> refs = new HashMap<>();
+        private final Map<String, CompletableFuture<AuthorRef>> futures = new HashMap<>();
+
+        private void add(String key, AuthorRef ref, CompletableFuture<AuthorRef> future) {
+            refs.put(key, ref);
+            futures.put(key, future);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AuthorIdCache.this);
+            futures.forEach((key, future) -> {
+                if (status == STATUS_COMMITTED) {
+                    future.complete(refs.get(key));
+                } else {
+                    discard(key, future);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.librairie.catalogue.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free Bloom filter over strings. A negative answer is definite, a positive one may be wrong with
+ * a probability that grows with the number of insertions.
+ */
+public final class BloomFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final LongAdder setBits = new LongAdder();
+    private final LongAdder insertions = new LongAdder();
+
+    private BloomFilter(long bitCount, int hashCount, long capacity) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+    }
+
+    public static BloomFilter create(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: " + capacity + " / " + falsePositiveRate);
+        }
+        long bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+        return new BloomFilter(bitCount, hashCount, capacity);
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            if (setBit(Math.floorMod(hash1 + i * hash2, bitCount))) {
+                setBits.increment();
+            }
+        }
+        insertions.increment();
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False positive rate expected from the current bit density, it accounts for values inserted
+     * several times or removed from the source since the filter has been built.
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.sum() / bitCount, hashCount);
+    }
+
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        return true;
+    }
+
+    // 64 bits FNV-1a, the second hash is derived from the first one (Kirsch-Mitzenmacher)
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,150 @@
+package com.librairie.catalogue.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.librairie.catalogue.config.BookCacheProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.model.dto.BookDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the books served by ISBN. Entries are evicted after commit of any write on
+ * the book, a rolled back write leaves the cache untouched, and reads made by a writing transaction
+ * bypass the cache. A load in flight is registered in the cache before it starts, so an invalidation
+ * drops it along with the settled entries: a value read before a commit can not outlive that commit's
+ * invalidation. Loads run outside of the cache's locks, see {@link Memoizer}.
+ * <p>
+ * Each entry may also keep the book encoded as a response, computed on first use. It lives and dies
+ * with the book it was encoded from.
+ */
+@Component
+public class BookCache {
+
+    /**
+     * Response body of a book, as UTF-8 JSON and gzip compressed JSON, the latter being null when not
+     * worth it. The arrays are shared by every hit and must never be written to.
+     */
+    public record EncodedBook(String eTag, byte[] json, byte[] gzip) {
+    }
+
+    private final BookCacheProperties properties;
+    private final AsyncCache<String, Entry> cache;
+
+    public BookCache(BookCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    public BookDTO get(String isbn, Function<String, BookDTO> loader) {
+        if (bypassed()) {
+            return loader.apply(isbn);
+        }
+        // Callers get their own copy, the cached one is never handed out
+        return copy(Memoizer.get(cache, isbn, key -> new Entry(copy(loader.apply(key)))).book);
+    }
+
+    /**
+     * Encoded book, the book being loaded and then encoded only if missing.
+     */
+    public EncodedBook getEncoded(String isbn, Function<String, BookDTO> loader, Function<BookDTO, EncodedBook> encoder) {
+        if (bypassed()) {
+            return encoder.apply(loader.apply(isbn));
+        }
+        // Hits are looked up first, sparing the loading lambda and keeping them allocation free
+        Entry entry = settled(isbn);
+        if (entry == null) {
+            entry = Memoizer.get(cache, isbn, key -> new Entry(copy(loader.apply(key))));
+        }
+        EncodedBook encoded = entry.encoded;
+        if (encoded == null) {
+            // Two threads may both encode the same book, they get identical results
+            encoded = encoder.apply(entry.book);
+            entry.encoded = encoded;
+        }
+        return encoded;
+    }
+
+    /**
+     * Encoded book if already cached, null otherwise.
+     */
+    public EncodedBook getEncodedIfPresent(String isbn) {
+        if (bypassed()) {
+            return null;
+        }
+        Entry entry = settled(isbn);
+        return entry == null ? null : entry.encoded;
+    }
+
+    /**
+     * Cached book, without loading it when absent.
+     */
+    public BookDTO getIfPresent(String isbn) {
+        if (bypassed()) {
+            return null;
+        }
+        Entry entry = settled(isbn);
+        return entry == null ? null : copy(entry.book);
+    }
+
+    public void invalidate(String isbn) {
+        cache.synchronous().invalidate(isbn);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        invalidate(event.isbn());
+    }
+
+    // Author names are part of the cached books, renaming or removing an author is rare enough to drop them all
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.type() != AuthorChangedEvent.ChangeType.CREATED) {
+            invalidateAll();
+        }
+    }
+
+    // A read inside a writing transaction may see its uncommitted changes, it must not populate the cache
+    private boolean bypassed() {
+        return !properties.isEnabled() || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    // Loaded entry, null when absent or still loading
+    private Entry settled(String isbn) {
+        CompletableFuture<Entry> future = cache.getIfPresent(isbn);
+        return future == null ? null : future.getNow(null);
+    }
+
+    private static BookDTO copy(BookDTO book) {
+        return book.toBuilder()
+                .authors(book.getAuthors() == null ? null : List.copyOf(book.getAuthors()))
+                .build();
+    }
+
+    private static final class Entry {
+        private final BookDTO book;
+        private volatile EncodedBook encoded;
+
+        private Entry(BookDTO book) {
+            this.book = book;
+        }
+    }
+}
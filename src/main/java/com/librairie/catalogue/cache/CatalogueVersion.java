@@ -0,0 +1,70 @@
+package com.librairie.catalogue.cache;
+
+import com.librairie.catalogue.config.ChangeFeedProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.repository.ChangeLogPosition;
+import com.librairie.catalogue.repository.ChangeLogRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Weak ETag of the book collections, taken from the change log every book and author write is recorded in:
+ * any committed write, of any instance, changes the tag of every page and search. The tag is the last settled
+ * entry and the count of the entries recorded since, an entry committed out of order still changes the count.
+ * It is read again at most every {@code catalogue.change-feed.poll-interval}, and right after a write of this
+ * instance.
+ * <p>
+ * Only the writes made through the application are recorded: a row written directly in SQL, ex. by a migration or
+ * a manual fix, leaves the tag unchanged, and clients may keep getting {@code 304} for stale pages until the next
+ * write through the application.
+ */
+@Component
+public class CatalogueVersion {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeFeedProperties properties;
+    // Writes of this instance, a tag read before one of them commits is not kept
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CachedTag cached;
+
+    public CatalogueVersion(ChangeLogRepository changeLogRepository, ChangeFeedProperties properties) {
+        this.changeLogRepository = changeLogRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Must be read before the collection it tags: a write committed in between then only costs a full response.
+     */
+    public String eTag() {
+        long now = System.nanoTime();
+        long currentGeneration = generation.get();
+        CachedTag current = cached;
+        if (current != null && current.generation() == currentGeneration
+                && now - current.readAt() < properties.getPollInterval().toNanos()) {
+            return current.eTag();
+        }
+        ChangeLogPosition position = changeLogRepository.findPosition(Instant.now().minus(properties.getSettleTime()));
+        Instant lastSettled = position.getLastSettled();
+        long settledMicros = lastSettled == null ? 0 : lastSettled.getEpochSecond() * 1_000_000 + lastSettled.getNano() / 1_000;
+        String eTag = "W/\"" + Long.toString(settledMicros, Character.MAX_RADIX) + "-" + position.getRecentCount() + "\"";
+        cached = new CachedTag(eTag, now, currentGeneration);
+        return eTag;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private record CachedTag(String eTag, long readAt, long generation) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.librairie.catalogue.cache;
+
+import com.librairie.catalogue.config.IsbnFilterProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In memory Bloom filter of the known ISBNs, checked before asking the database whether an ISBN exists.
+ * Until the filter is built, or when it is disabled, every ISBN is reported as possibly present.
+ * Bloom filters cannot forget, deleted ISBNs stay in it until the next rebuild, which happens when the
+ * catalogue outgrows the filter or when the observed false positive rate drifts too far from the target.
+ */
+@Component
+public class IsbnFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IsbnFilter.class);
+
+    private final BookRepository bookRepository;
+    private final IsbnFilterProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+    // Lookups since the current filter has been built, its observed false positive rate is computed on them
+    private final LongAdder windowNegatives = new LongAdder();
+    private final LongAdder windowFalsePositives = new LongAdder();
+
+    private volatile BloomFilter filter;
+    // Filter being built, ISBNs added meanwhile are written to both filters
+    private volatile BloomFilter nextFilter;
+    // ISBNs added by transactions still running: a rebuild cannot read them, yet they may be committed after it
+    private final Set<String> uncommittedIsbns = ConcurrentHashMap.newKeySet();
+
+    public IsbnFilter(BookRepository bookRepository, IsbnFilterProperties properties,
+                      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.negatives = Counter.builder("catalogue.isbn.filter.lookups").tag("result", "absent")
+                .description("ISBN lookups answered by the filter without querying the database")
+                .register(meterRegistry);
+        this.positives = Counter.builder("catalogue.isbn.filter.lookups").tag("result", "maybe")
+                .description("ISBN lookups passed through to the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("catalogue.isbn.filter.false.positives")
+                .description("ISBN lookups passed through to the database for an unknown ISBN")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.isbn.filter.false.positive.rate", this, IsbnFilter::observedFalsePositiveRate)
+                .description("False positive rate observed on lookups")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.isbn.filter.expected.false.positive.rate", this, IsbnFilter::expectedFalsePositiveRate)
+                .description("False positive rate expected from the filter density")
+                .register(meterRegistry);
+    }
+
+    public boolean mightContain(String isbn) {
+        BloomFilter current = filter;
+        if (current == null || !properties.isEnabled()) {
+            return true;
+        }
+        if (current.mightContain(isbn)) {
+            positives.increment();
+            return true;
+        }
+        negatives.increment();
+        windowNegatives.increment();
+        return false;
+    }
+
+    /**
+     * To be called when the database denied an ISBN the filter reported as possibly present.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+        windowFalsePositives.increment();
+        if (filter != null && windowFalsePositives.sum() + windowNegatives.sum() >= properties.getRebuildMinSamples()
+                && observedFalsePositiveRate() > properties.getFalsePositiveRate() * properties.getRebuildThreshold()) {
+            scheduleRebuild();
+        }
+    }
+
+    // Runs as soon as the write happens, before the commit: a rolled back ISBN only costs a false positive
+    // while a late one would let a duplicate ISBN through the validation
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.CREATED) {
+            put(event.isbn());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long capacity = Math.max(properties.getMinCapacity(),
+                    (long) (bookRepository.count() * properties.getGrowthFactor()));
+            BloomFilter next = BloomFilter.create(capacity, properties.getFalsePositiveRate());
+            // ISBNs added from now on go to the new filter too, the ones added before by a running transaction
+            // are copied into it: either way they are in it, committed before or after the ISBNs are read
+            nextFilter = next;
+            List<String> uncommitted = List.copyOf(uncommittedIsbns);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+                    isbns.forEach(next::put);
+                }
+            });
+            uncommitted.forEach(next::put);
+            filter = next;
+            windowNegatives.reset();
+            windowFalsePositives.reset();
+            LOGGER.info("ISBN filter built with {} ISBNs for a capacity of {}", next.insertions(), capacity);
+        } finally {
+            nextFilter = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    double observedFalsePositiveRate() {
+        double falsePositiveCount = windowFalsePositives.sum();
+        double total = falsePositiveCount + windowNegatives.sum();
+        return total == 0 ? 0 : falsePositiveCount / total;
+    }
+
+    double expectedFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 1 : current.expectedFalsePositiveRate();
+    }
+
+    private void put(String isbn) {
+        // Tracked before the filter being built is read, so that a rebuild starting meanwhile sees it one way or the other
+        trackUntilCompletion(isbn);
+        // Read the filter being built first: once it is published as the current filter it is seen below
+        BloomFilter next = nextFilter;
+        BloomFilter current = filter;
+        if (next != null) {
+            next.put(isbn);
+        }
+        if (current != null) {
+            current.put(isbn);
+            if (current.insertions() > current.capacity()) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    private void trackUntilCompletion(String isbn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        uncommittedIsbns.add(isbn);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                uncommittedIsbns.remove(isbn);
+            }
+        });
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("isbn-filter-rebuild").start(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to rebuild the ISBN filter", e);
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.librairie.catalogue.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Loads the values of an {@link AsyncCache} outside of the cache's own locking. A synchronous Caffeine
+ * loader runs inside {@code ConcurrentHashMap.compute}, under a {@code synchronized} block: a virtual thread
+ * blocking on JDBC there pins its carrier thread. Here only an empty future is put in the map, the caller
+ * that put it loads the value and completes it, concurrent callers of the same key wait on that future.
+ * <p>
+ * The future is in the map before the load starts, so an invalidation racing with the load removes it and
+ * the value read can not outlive the invalidation.
+ */
+final class Memoizer {
+
+    private Memoizer() {
+    }
+
+    static <K, V> V get(AsyncCache<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        while (true) {
+            // Allocated even on a hit, a single lookup keeps the hit and miss statistics right
+            CompletableFuture<V> created = new CompletableFuture<>();
+            CompletableFuture<V> future = cache.get(key, (k, executor) -> created);
+            if (future == created) {
+                return load(created, key, loader);
+            }
+            try {
+                return future.join();
+            } catch (CancellationException e) {
+                // The load failed, like a synchronous cache the waiters try to load the value themselves
+                cache.asMap().remove(key, future);
+            }
+        }
+    }
+
+    /**
+     * Values of several keys, the missing ones being loaded together by {@code loader}, which must return a
+     * value for each key it is given. Keys already loading elsewhere are waited for once the others are loaded,
+     * so that two callers each loading a part of the keys of the other can not wait on each other.
+     */
+    static <K, V> Map<K, V> getAll(AsyncCache<K, V> cache, Set<K> keys, Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> created = new HashMap<>();
+        Map<K, CompletableFuture<V>> pending = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = cache.get(key, (k, executor) -> future);
+            (existing == future ? created : pending).put(key, existing);
+        }
+
+        Map<K, V> values = new HashMap<>(keys.size());
+        if (!created.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(created.keySet());
+                created.forEach((key, future) -> {
+                    V value = Objects.requireNonNull(loaded.get(key), () -> "No value loaded for " + key);
+                    future.complete(value);
+                    values.put(key, value);
+                });
+            } catch (RuntimeException | Error e) {
+                // The completed ones are kept, cancel is a no-op on them
+                created.values().forEach(future -> future.cancel(false));
+                throw e;
+            }
+        }
+        pending.forEach((key, future) -> {
+            try {
+                values.put(key, future.join());
+            } catch (CancellationException e) {
+                cache.asMap().remove(key, future);
+                values.put(key, get(cache, key, k -> loader.apply(Set.of(k)).get(k)));
+            }
+        });
+        return values;
+    }
+
+    // A failed load is cancelled rather than completed exceptionally, Caffeine would log every failure
+    private static <K, V> V load(CompletableFuture<V> created, K key, Function<? super K, ? extends V> loader) {
+        try {
+            V value = loader.apply(key);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.cancel(false);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.librairie.catalogue.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.librairie.catalogue.config.SecondLevelCacheProperties;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.MissingCacheStrategy;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache, each region held in a local Caffeine cache bounded by
+ * {@link SecondLevelCacheProperties}. Writes through Hibernate update or evict the cached entries in the same
+ * instance. Writes of other instances are only seen once the entries expire, and until then an update of a
+ * stale book or author fails on its version.
+ */
+@Component
+public class SecondLevelCache implements HibernatePropertiesCustomizer {
+    public static final String BOOK = "book";
+    public static final String BOOK_AUTHORS = "book-authors";
+    public static final String BOOK_ISBN = "book-isbn";
+    public static final String AUTHOR = "author";
+    public static final String AUTHOR_NAME = "author-name";
+    // Results of the cacheable queries, dropped as soon as one of the tables they read is written
+    public static final String QUERY_RESULTS = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String UPDATE_TIMESTAMPS = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+    public static final List<String> REGIONS = List.of(BOOK, BOOK_AUTHORS, BOOK_ISBN, AUTHOR, AUTHOR_NAME,
+            QUERY_RESULTS, UPDATE_TIMESTAMPS);
+
+    private final SecondLevelCacheProperties properties;
+
+    public SecondLevelCache(SecondLevelCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+        if (!properties.isEnabled()) {
+            return;
+        }
+        hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, true);
+        hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+        // Closed by Hibernate with the session factory
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, createCacheManager());
+        // A region missing from REGIONS, ex. a typo in an annotation, fails the startup instead of being unbounded
+        hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, MissingCacheStrategy.FAIL.getExternalRepresentation());
+    }
+
+    private CacheManager createCacheManager() {
+        // One manager per application context, contexts sharing a JVM (ex. tests) must not share cached rows
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("catalogue-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String name : REGIONS) {
+            SecondLevelCacheProperties.Region region = properties.getRegions()
+                    .getOrDefault(name, new SecondLevelCacheProperties.Region());
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>()
+                    // Hibernate already caches disassembled copies of the rows, they need no copy by the cache
+                    .setStoreByValue(false)
+                    .setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+            // One timestamp per table, an evicted one would let stale query results through
+            if (!name.equals(UPDATE_TIMESTAMPS)) {
+                configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+            }
+            cacheManager.createCache(name, configuration);
+        }
+        return cacheManager;
+    }
+}
@@ -0,0 +1,16 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.author-cache")
+public class AuthorCacheProperties {
+    private long maximumSize = 10_000;
+    // How long a lookup waits for an author being inserted by another transaction before loading it itself
+    private Duration loadWaitTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,14 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.author-suggest")
+public class AuthorSuggestProperties {
+    private boolean enabled = true;
+    // Suggestions precomputed per trie node, also the largest number of suggestions returned
+    private int topSize = 10;
+}
@@ -0,0 +1,19 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.book-cache")
+public class BookCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 50_000;
+    // Upper bound on staleness for changes the invalidation cannot see, ex. direct database updates
+    private Duration timeToLive = Duration.ofMinutes(10);
+    // Cached book responses also keep a gzip encoding when their JSON is at least this long, disabled if negative
+    private int gzipMinLength = 512;
+}
@@ -0,0 +1,17 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.book-search")
+public class BookSearchProperties {
+    // Criteria queried at the same time, each one holds a database connection: keep it below the pool size
+    private int parallelism = 4;
+    // Criteria waiting for a thread, past it the request thread runs its criteria itself
+    private int queueCapacity = 64;
+    // Ids returned by the query of a single criterion, results are exact up to the last id of a truncated one
+    private int subQueryLimit = 5_000;
+}
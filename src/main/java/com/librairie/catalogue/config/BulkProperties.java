@@ -0,0 +1,12 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.bulk")
+public class BulkProperties {
+    private int chunkSize = 500;
+}
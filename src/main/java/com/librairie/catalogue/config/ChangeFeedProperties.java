@@ -0,0 +1,21 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.change-feed")
+public class ChangeFeedProperties {
+    // Entries younger than this are not served yet: a transaction may still commit an entry recorded before them
+    private Duration settleTime = Duration.ofSeconds(5);
+    // Wait of a stream between two reads once it caught up with the log
+    private Duration pollInterval = Duration.ofSeconds(1);
+    // Entries read at once by a stream
+    private int streamBatchSize = 100;
+    // Lifetime of a stream, clients reconnect with the Last-Event-ID header
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,168 @@
+package com.librairie.catalogue.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tomcat only applies {@code server.compression.min-response-size} to responses of known length, while the
+ * message converters stream their bodies without one. The first {@code min-response-size} bytes of a
+ * compressible response are held back: a body ending within them is sent with its length, hence uncompressed,
+ * a longer one is streamed and compressed as before.
+ */
+@Component
+// The server properties are only bound for a web server, the benchmarks start the application without one
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final int threshold;
+    private final List<MimeType> mimeTypes;
+
+    public CompressionThresholdFilter(ServerProperties serverProperties) {
+        Compression compression = serverProperties.getCompression();
+        this.enabled = compression.getEnabled();
+        this.threshold = (int) compression.getMinResponseSize().toBytes();
+        this.mimeTypes = Arrays.stream(compression.getMimeTypes()).map(MimeTypeUtils::parseMimeType).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ThresholdResponse thresholdResponse = new ThresholdResponse(response);
+        filterChain.doFilter(request, thresholdResponse);
+        // An async response is written after this returns, held back bytes are sent before it goes on
+        thresholdResponse.finish(request.isAsyncStarted());
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MimeType mimeType = MimeTypeUtils.parseMimeType(contentType);
+        return mimeTypes.stream().anyMatch(type -> type.equalsTypeAndSubtype(mimeType));
+    }
+
+    private class ThresholdResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream outputStream;
+        private HeldOutputStream held;
+        private boolean lengthKnown;
+
+        ThresholdResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            lengthKnown = true;
+            super.setContentLength(length);
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            lengthKnown = true;
+            super.setContentLengthLong(length);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = super.getOutputStream();
+                if (!lengthKnown && getHeader(HttpHeaders.CONTENT_ENCODING) == null && isCompressible(getContentType())) {
+                    held = new HeldOutputStream(outputStream);
+                    outputStream = held;
+                }
+            }
+            return outputStream;
+        }
+
+        // Would commit the response without its length, ex. after a ResponseEntity body
+        @Override
+        public void flushBuffer() throws IOException {
+            if (held == null || held.released) {
+                super.flushBuffer();
+            }
+        }
+
+        void finish(boolean async) throws IOException {
+            if (held == null || held.released) {
+                return;
+            }
+            if (!async) {
+                setContentLength(held.buffer.size());
+            }
+            held.release();
+        }
+    }
+
+    private class HeldOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(threshold);
+        private boolean released;
+
+        HeldOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(@NonNull byte[] bytes, int offset, int length) throws IOException {
+            if (released) {
+                delegate.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            if (buffer.size() > threshold) {
+                release();
+            }
+        }
+
+        // Flushes of a body still under the threshold are held back with it
+        @Override
+        public void flush() throws IOException {
+            if (released) {
+                delegate.flush();
+            }
+        }
+
+        void release() throws IOException {
+            released = true;
+            buffer.writeTo(delegate);
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
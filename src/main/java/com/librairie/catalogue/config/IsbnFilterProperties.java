@@ -0,0 +1,19 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.isbn-filter")
+public class IsbnFilterProperties {
+    private boolean enabled = true;
+    private double falsePositiveRate = 0.01;
+    private long minCapacity = 100_000;
+    // Headroom given to the catalogue size when the filter is (re)built
+    private double growthFactor = 2.0;
+    // Observed false positive rate, over the target rate, above which the filter is rebuilt
+    private double rebuildThreshold = 2.0;
+    private long rebuildMinSamples = 10_000;
+}
@@ -0,0 +1,13 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.metrics")
+public class MetricsProperties {
+    // Method timers and Hibernate statistics at startup, switched at runtime through /actuator/instrumentation
+    private boolean enabled = true;
+}
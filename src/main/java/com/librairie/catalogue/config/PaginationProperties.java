@@ -0,0 +1,20 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.pagination")
+public class PaginationProperties {
+    private int defaultSize = 50;
+    private int maxSize = 500;
+
+    public int resolveSize(Integer requestedSize) {
+        if (requestedSize == null) {
+            return defaultSize;
+        }
+        return Math.clamp(requestedSize, 1, maxSize);
+    }
+}
@@ -0,0 +1,16 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.search-index")
+public class SearchIndexProperties {
+    private boolean enabled = true;
+    // Weight of a title occurrence relative to a summary one
+    private double titleWeight = 2.0;
+    // Share of replaced or removed documents, over the indexed ones, above which the index is rebuilt
+    private double rebuildDeletedRatio = 0.25;
+}
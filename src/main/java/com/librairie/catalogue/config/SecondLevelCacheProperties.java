@@ -0,0 +1,27 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.second-level-cache")
+public class SecondLevelCacheProperties {
+    // Hibernate cache of the books, the authors and their natural ids, local to each instance
+    private boolean enabled = true;
+    // By region name, ex. catalogue.second-level-cache.regions.book.maximum-size, unlisted regions use the defaults
+    private Map<String, Region> regions = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Region {
+        private long maximumSize = 10_000;
+        // Upper bound on staleness for the writes of other instances, the local invalidation cannot see them
+        private Duration timeToLive = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,15 @@
+package com.librairie.catalogue.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalogue.statement-budget")
+public class StatementBudgetProperties {
+    // Logs a warning for every request executing more statements than the budget
+    private boolean enabled = false;
+    // Statements a request may execute, an N+1 select over a page of books goes far beyond it
+    private int maxStatements = 10;
+}
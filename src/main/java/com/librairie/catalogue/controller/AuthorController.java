@@ -1,6 +1,7 @@
 package com.librairie.catalogue.controller;
 
 import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.AuthorSuggestionDTO;
 import com.librairie.catalogue.service.AuthorService;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +23,12 @@ public class AuthorController {
         return authorService.getAllAuthors();
     }
 
+    @GetMapping("/suggest")
+    public List<AuthorSuggestionDTO> suggestAuthors(@RequestParam String prefix,
+                                                    @RequestParam(required = false) Integer limit) {
+        return authorService.suggestAuthors(prefix, limit);
+    }
+
     @GetMapping("/{id}")
     public AuthorDTO getAuthorById(@PathVariable Long id) {
         return authorService.getAuthorById(id);
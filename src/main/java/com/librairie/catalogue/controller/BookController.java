@@ -1,35 +1,141 @@
 package com.librairie.catalogue.controller;
 
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.cache.CatalogueVersion;
 import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.model.dto.BulkItemResultDTO;
+import com.librairie.catalogue.service.BookBulkService;
+import com.librairie.catalogue.service.BookETag;
+import com.librairie.catalogue.service.BookExportService;
+import com.librairie.catalogue.service.BookSearchService;
 import com.librairie.catalogue.service.BookService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String GZIP = "gzip";
+
     private final BookService bookService;
+    private final BookExportService bookExportService;
+    private final BookBulkService bookBulkService;
+    private final BookSearchService bookSearchService;
+    private final CatalogueVersion catalogueVersion;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookExportService bookExportService,
+                          BookBulkService bookBulkService, BookSearchService bookSearchService,
+                          CatalogueVersion catalogueVersion) {
         this.bookService = bookService;
+        this.bookExportService = bookExportService;
+        this.bookBulkService = bookBulkService;
+        this.bookSearchService = bookSearchService;
+        this.catalogueVersion = catalogueVersion;
     }
 
+    /**
+     * Whole books, or only the comma separated {@code fields} of each book, ex. {@code ?fields=isbn,title}.
+     */
     @GetMapping
-    public List<BookDTO> getAllBooks() {
-        return bookService.getAllBooks();
+    public ResponseEntity<List<?>> getAllBooks(@RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(required = false) String fields,
+                                               WebRequest request) {
+        Set<BookField> bookFields = BookField.parse(fields);
+        // A 304 answer is sent as soon as the tag matches, the page is neither queried nor serialized
+        if (request.checkNotModified(catalogueVersion.eTag())) {
+            return null;
+        }
+        return toResponse(bookService.getAllBooks(cursor, size, bookFields), bookFields);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        // Written straight to the response, nothing is buffered in a List
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        bookExportService.exportBooks(response.getOutputStream());
     }
 
-    @GetMapping("/{isbn}")
-    public BookDTO getBookByIsbn(@PathVariable String isbn) {
-        return bookService.getBookByIsbn(isbn);
+    /**
+     * Writes the cached encoding of the book as is: a hot book is neither mapped nor serialized again.
+     */
+    @GetMapping(value = "/{isbn}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getBookByIsbn(@PathVariable String isbn, ServletWebRequest request) throws IOException {
+        BookCache.EncodedBook book = bookService.findCachedEncodedBook(isbn);
+        if (request.checkNotModified(book != null ? book.eTag() : bookService.getBookETag(isbn))) {
+            return;
+        }
+        if (book == null) {
+            book = bookService.getEncodedBook(isbn);
+        }
+        HttpServletResponse response = request.getResponse();
+        // The book may have changed since its tag was read, the response carries the tag of the written version
+        if (book.eTag() != null) {
+            response.setHeader(HttpHeaders.ETAG, book.eTag());
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] body = book.json();
+        if (book.gzip() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            body = book.gzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
 
     @GetMapping("/search")
-    public List<BookDTO> searchBooks(@RequestParam(required = false) String title,
-                                     @RequestParam(required = false) String author) {
-        return bookService.searchBooks(title, author);
+    public ResponseEntity<List<?>> searchBooks(@RequestParam(required = false) String q,
+                                               @RequestParam(required = false) String title,
+                                               @RequestParam(required = false) String author,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedFrom,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedTo,
+                                               @RequestParam(required = false) Integer minPages,
+                                               @RequestParam(required = false) Integer maxPages,
+                                               @RequestParam(defaultValue = "ALL") BookSearchCriteria.Match match,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(required = false) String fields,
+                                               WebRequest request) {
+        Set<BookField> bookFields = BookField.parse(fields);
+        if (request.checkNotModified(catalogueVersion.eTag())) {
+            return null;
+        }
+        if (q != null && !q.isBlank()) {
+            return toResponse(bookService.searchBooksByText(q, cursor, size, bookFields), bookFields);
+        }
+        BookSearchCriteria criteria = BookSearchCriteria.builder()
+                .title(title)
+                .author(author)
+                .publishedFrom(publishedFrom)
+                .publishedTo(publishedTo)
+                .minPages(minPages)
+                .maxPages(maxPages)
+                .match(match)
+                .build();
+        if (criteria.isCombined()) {
+            return toResponse(bookSearchService.search(criteria, cursor, size, bookFields), bookFields);
+        }
+        return toResponse(bookService.searchBooks(title, author, cursor, size, bookFields), bookFields);
     }
 
     @PostMapping
@@ -37,13 +143,54 @@ public class BookController {
         return bookService.createBook(bookDTO);
     }
 
+    @PostMapping("/bulk")
+    public List<BulkItemResultDTO> upsertBooks(@RequestBody List<BookDTO> bookDTOs) {
+        return bookBulkService.upsertBooks(bookDTOs);
+    }
+
     @PutMapping
-    public BookDTO updateBook(@RequestBody BookDTO bookDTO) {
-        return bookService.updateBook(bookDTO);
+    public ResponseEntity<BookDTO> updateBook(@RequestBody BookDTO bookDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(bookService.updateBook(bookDTO, ifMatch));
+    }
+
+    // Also accepts application/merge-patch+json, read by the JSON converter like any +json type
+    @PatchMapping("/{isbn}")
+    public ResponseEntity<BookDTO> patchBook(@PathVariable String isbn, @RequestBody BookPatchDTO patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(bookService.patchBook(isbn, patch, ifMatch));
     }
 
     @DeleteMapping("/{isbn}")
     public void deleteBook(@PathVariable String isbn) {
         bookService.deleteBook(isbn);
     }
+
+    private static ResponseEntity<BookDTO> withETag(BookDTO book) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String eTag = BookETag.of(book);
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(book);
+    }
+
+    // Any listed gzip coding is taken as accepted, an explicit q=0 is not looked for
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.contains(GZIP);
+    }
+
+    // The body stays a plain JSON array, the next page is advertised through a header
+    // Partial books are written as maps, only their fields are serialized
+    private ResponseEntity<List<?>> toResponse(BookPageDTO page, Set<BookField> fields) {
+        // Same weak tag for every encoding of the page, caches must still keep them apart
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (fields == null) {
+            return response.body(page.getBooks());
+        }
+        return response.body(page.getBooks().stream().map(book -> BookField.toMap(book, fields)).toList());
+    }
 }
@@ -0,0 +1,45 @@
+package com.librairie.catalogue.controller;
+
+import com.librairie.catalogue.model.dto.ChangeDTO;
+import com.librairie.catalogue.model.dto.ChangePageDTO;
+import com.librairie.catalogue.service.ChangeFeedService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+    // Sent back by EventSource clients when they reconnect, the id of the last event they received
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    // The next cursor is always returned, a short page only means the client caught up for now
+    @GetMapping
+    public ResponseEntity<List<ChangeDTO>> getChanges(@RequestParam(required = false) String since,
+                                                      @RequestParam(required = false) Integer size) {
+        ChangePageDTO page = changeFeedService.getChanges(since, size);
+        return ResponseEntity.ok()
+                .header(BookController.NEXT_CURSOR_HEADER, page.getNextCursor())
+                .body(page.getChanges());
+    }
+
+    @GetMapping(value = "/cursor", produces = MediaType.TEXT_PLAIN_VALUE)
+    public String getCurrentCursor() {
+        return changeFeedService.getCurrentCursor();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String since,
+                                    @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return changeFeedService.stream(lastEventId != null ? lastEventId : since);
+    }
+}
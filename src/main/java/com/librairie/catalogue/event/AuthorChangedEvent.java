@@ -0,0 +1,25 @@
+package com.librairie.catalogue.event;
+
+/**
+ * Published inside the transaction that writes an author. The previous name is only set for updates.
+ */
+public record AuthorChangedEvent(ChangeType type, Long id, String previousName, String name) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static AuthorChangedEvent created(Long id, String name) {
+        return new AuthorChangedEvent(ChangeType.CREATED, id, null, name);
+    }
+
+    public static AuthorChangedEvent updated(Long id, String previousName, String name) {
+        return new AuthorChangedEvent(ChangeType.UPDATED, id, previousName, name);
+    }
+
+    public static AuthorChangedEvent deleted(Long id, String name) {
+        return new AuthorChangedEvent(ChangeType.DELETED, id, null, name);
+    }
+}
@@ -0,0 +1,30 @@
+package com.librairie.catalogue.event;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that writes a book. The snapshot is the book as written, it is
+ * null for deletions. The previous authors are the ones the book had before an update or a deletion.
+ */
+public record BookChangedEvent(ChangeType type, String isbn, BookDTO book, List<String> previousAuthors) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static BookChangedEvent created(BookDTO book) {
+        return new BookChangedEvent(ChangeType.CREATED, book.getIsbn(), book, List.of());
+    }
+
+    public static BookChangedEvent updated(BookDTO book, List<String> previousAuthors) {
+        return new BookChangedEvent(ChangeType.UPDATED, book.getIsbn(), book, List.copyOf(previousAuthors));
+    }
+
+    public static BookChangedEvent deleted(String isbn, List<String> previousAuthors) {
+        return new BookChangedEvent(ChangeType.DELETED, isbn, null, List.copyOf(previousAuthors));
+    }
+}
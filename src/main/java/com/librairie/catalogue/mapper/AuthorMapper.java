@@ -3,12 +3,18 @@ package com.librairie.catalogue.mapper;
 import com.librairie.catalogue.model.Author;
 import com.librairie.catalogue.model.dto.AuthorDTO;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface AuthorMapper {
     AuthorDTO authorToAuthorDTO(Author author);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "books", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Author authorDTOToAuthor(AuthorDTO authorDTO);
+
     List<AuthorDTO> authorsToAuthorDTOs(List<Author> authors);
 }
\ No newline at end of file
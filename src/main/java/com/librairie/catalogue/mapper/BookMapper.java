@@ -17,6 +17,8 @@ public interface BookMapper {
     BookDTO bookToBookDTO(Book book);
 
     @Mapping(target = "authors", ignore = true)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Book bookDTOToBook(BookDTO bookDTO);
 
     List<BookDTO> booksToBookDTOs(List<Book> books);
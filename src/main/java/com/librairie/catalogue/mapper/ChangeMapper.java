@@ -0,0 +1,13 @@
+package com.librairie.catalogue.mapper;
+
+import com.librairie.catalogue.model.ChangeLogEntry;
+import com.librairie.catalogue.model.dto.ChangeDTO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ChangeMapper {
+    ChangeDTO entryToChangeDTO(ChangeLogEntry entry);
+    List<ChangeDTO> entriesToChangeDTOs(List<ChangeLogEntry> entries);
+}
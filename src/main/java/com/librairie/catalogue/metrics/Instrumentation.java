@@ -0,0 +1,32 @@
+package com.librairie.catalogue.metrics;
+
+import com.librairie.catalogue.config.MetricsProperties;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Switch of the hot path instrumentation: the method timers of {@link MethodMetricsAspect} and the Hibernate
+ * statistics behind the {@code hibernate.*} meters. Both cost a few atomic updates per call and can be turned
+ * off at runtime, without a restart, through {@link InstrumentationEndpoint}.
+ */
+@Component
+public class Instrumentation {
+    private final Statistics statistics;
+    private volatile boolean enabled;
+
+    public Instrumentation(MetricsProperties properties, EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        setEnabled(properties.isEnabled());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        statistics.setStatisticsEnabled(enabled);
+    }
+}
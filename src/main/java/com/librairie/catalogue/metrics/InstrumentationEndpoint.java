@@ -0,0 +1,32 @@
+package com.librairie.catalogue.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/instrumentation} tells whether the instrumentation is on,
+ * {@code POST /actuator/instrumentation} with {@code {"enabled": false}} turns it off.
+ */
+@Component
+@Endpoint(id = "instrumentation")
+public class InstrumentationEndpoint {
+    private final Instrumentation instrumentation;
+
+    public InstrumentationEndpoint(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @ReadOperation
+    public Map<String, Boolean> instrumentation() {
+        return Map.of("enabled", instrumentation.isEnabled());
+    }
+
+    @WriteOperation
+    public void setEnabled(boolean enabled) {
+        instrumentation.setEnabled(enabled);
+    }
+}
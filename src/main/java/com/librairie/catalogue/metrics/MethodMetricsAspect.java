@@ -0,0 +1,90 @@
+package com.librairie.catalogue.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the book and author services and every query of their repositories, as
+ * {@code catalogue.service} and {@code catalogue.repository} timers tagged with the class, the method and the
+ * exception thrown, {@code none} on success. The timers of successful calls are looked up once per method,
+ * a call then only costs two clock reads and the timer update. Nothing is recorded while
+ * {@link Instrumentation} is off.
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+    private static final String SERVICE_TIMER = "catalogue.service";
+    private static final String REPOSITORY_TIMER = "catalogue.repository";
+
+    private final MeterRegistry meterRegistry;
+    private final Instrumentation instrumentation;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry meterRegistry, Instrumentation instrumentation) {
+        this.meterRegistry = meterRegistry;
+        this.instrumentation = instrumentation;
+    }
+
+    @Around("execution(public * com.librairie.catalogue.service.BookService.*(..))")
+    public Object timeBookService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, "BookService", joinPoint);
+    }
+
+    @Around("execution(public * com.librairie.catalogue.service.AuthorService.*(..))")
+    public Object timeAuthorService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, "AuthorService", joinPoint);
+    }
+
+    // Declared by any repository interface, to include the methods inherited from JpaRepository, ex. save
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) "
+            + "&& target(com.librairie.catalogue.repository.BookRepository)")
+    public Object timeBookRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, "BookRepository", joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..)) "
+            + "&& target(com.librairie.catalogue.repository.AuthorRepository)")
+    public Object timeAuthorRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, "AuthorRepository", joinPoint);
+    }
+
+    private Object time(String name, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!instrumentation.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timers.computeIfAbsent(new TimerKey(name, type, method), key -> timer(key, "none"))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            // Rare enough to go through the registry, which keeps one timer per exception type
+            timer(new TimerKey(name, type, method), e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(TimerKey key, String exception) {
+        return Timer.builder(key.name())
+                .tag("class", key.type())
+                .tag("method", key.method().getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    private record TimerKey(String name, String type, Method method) {
+    }
+}
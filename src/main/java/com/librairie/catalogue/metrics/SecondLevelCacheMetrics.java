@@ -0,0 +1,44 @@
+package com.librairie.catalogue.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hit ratio of each second-level cache region, ex. {@code catalogue.second-level-cache.hit-ratio{region="book"}}.
+ * The hits and misses behind it are also published, as {@code hibernate.second.level.cache.requests}. Both come
+ * from the Hibernate statistics, which only count while the {@link Instrumentation} is enabled.
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+    private final Statistics statistics;
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            // The timestamps of the tables are only read to check the query results, they have no statistics
+            if (statistics.getCacheRegionStatistics(region) == null) {
+                continue;
+            }
+            Gauge.builder("catalogue.second-level-cache.hit-ratio", statistics,
+                            stats -> hitRatio(stats.getCacheRegionStatistics(region)))
+                    .tag("region", region)
+                    .description("Share of the second-level cache lookups of the region that were hits")
+                    .register(registry);
+        }
+    }
+
+    static double hitRatio(CacheRegionStatistics region) {
+        long lookups = region.getHitCount() + region.getMissCount();
+        return lookups == 0 ? Double.NaN : (double) region.getHitCount() / lookups;
+    }
+}
@@ -0,0 +1,70 @@
+package com.librairie.catalogue.metrics;
+
+import com.librairie.catalogue.config.StatementBudgetProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the statements of each request. They are recorded in the {@code catalogue.request.statements}
+ * summary while {@link Instrumentation} is on, and requests going over the statement budget are logged
+ * when it is enabled.
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementBudgetFilter.class);
+
+    private final StatementBudgetProperties properties;
+    private final Instrumentation instrumentation;
+    private final MeterRegistry meterRegistry;
+
+    public StatementBudgetFilter(StatementBudgetProperties properties, Instrumentation instrumentation,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.instrumentation = instrumentation;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean measured = instrumentation.isEnabled();
+        boolean budgeted = properties.isEnabled();
+        if (!measured && !budgeted) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        StatementCounter.Scope scope = StatementCounter.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            // Set once the handler is found, unmatched requests are all reported together
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            if (measured) {
+                DistributionSummary.builder("catalogue.request.statements")
+                        .description("SQL statements executed by a request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .record(scope.count());
+            }
+            if (budgeted && scope.count() > properties.getMaxStatements()) {
+                LOGGER.warn("{} {} executed {} statements, over the budget of {}", request.getMethod(),
+                        request.getRequestURI(), scope.count(), properties.getMaxStatements());
+            }
+        }
+    }
+}
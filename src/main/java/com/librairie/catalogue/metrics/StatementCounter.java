@@ -0,0 +1,77 @@
+package com.librairie.catalogue.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on behalf of the current thread, as reported by
+ * {@link StatementCountingInspector}. Scopes nest, a statement counts in every scope open on the thread,
+ * so a test may open one around a request whose filter opens its own.
+ * <p>
+ * Work handed to another thread, ex. the criteria of a combined search, is counted in the scopes it was
+ * submitted from when wrapped with {@link #propagate}.
+ */
+public final class StatementCounter {
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    static void increment() {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.count.incrementAndGet();
+        }
+    }
+
+    private static void restore(Scope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    /**
+     * Statements counted since the scope was opened, closed by the thread that opened it.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        // Incremented by the threads the scope was propagated to as well
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int count() {
+            return count.get();
+        }
+
+        @Override
+        public void close() {
+            restore(parent);
+        }
+    }
+}
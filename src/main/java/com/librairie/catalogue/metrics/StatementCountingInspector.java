@@ -0,0 +1,27 @@
+package com.librairie.catalogue.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Feeds {@link StatementCounter} with every statement Hibernate prepares. All the SQL of the application
+ * goes through Hibernate, counting there spares proxying every JDBC call as a counting data source would.
+ */
+@Component
+public class StatementCountingInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        StatementCounter.increment();
+        return sql;
+    }
+}
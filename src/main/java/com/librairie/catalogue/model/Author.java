@@ -1,8 +1,13 @@
 package com.librairie.catalogue.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.librairie.catalogue.cache.SecondLevelCache;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -13,11 +18,17 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCache.AUTHOR)
+@NaturalIdCache(region = SecondLevelCache.AUTHOR_NAME)
 public class Author {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Long id;
 
+    // Authors can be renamed
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String name;
 
@@ -26,6 +37,9 @@ public class Author {
     @ManyToMany(mappedBy = "authors")
     private Set<Book> books = new HashSet<>();
 
+    @Version
+    private Long version;
+
     public Author(String name) {
         this.name = name;
     }
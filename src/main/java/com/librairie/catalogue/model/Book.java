@@ -1,8 +1,15 @@
 package com.librairie.catalogue.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.librairie.catalogue.cache.SecondLevelCache;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -14,18 +21,29 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Updates only write the changed columns, most edits touch a single one
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCache.BOOK)
+@NaturalIdCache(region = SecondLevelCache.BOOK_ISBN)
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
+    // Books are looked up by ISBN, resolved to their id by the natural id cache
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String isbn;
 
     private String title;
 
+    // Lazy collections still initialized one by one (ex. streamed books) are loaded by batches
     @Builder.Default
     @ManyToMany
+    @BatchSize(size = 500)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCache.BOOK_AUTHORS)
     @JoinTable(
             name = "book_author",
             joinColumns = @JoinColumn(name = "book_id"),
@@ -40,4 +58,7 @@ public class Book {
     private String summary;
 
     private int pageCount;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,52 @@
+package com.librairie.catalogue.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Entry of the append-only change log, written in the transaction of the change it records. Entries are
+ * read in (recordedAt, id) order: ids come from blocks held by each instance, they only order the entries
+ * of a same instance.
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "change_log_recorded_at_id_idx", columnList = "recorded_at, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeLogEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 50)
+    private Long id;
+
+    // Truncated to the microsecond, the precision of the column on every database
+    @Column(nullable = false)
+    private Instant recordedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Resource resource;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeType type;
+
+    // ISBN of a book, id of an author
+    @Column(nullable = false)
+    private String resourceId;
+
+    public enum Resource {
+        BOOK,
+        AUTHOR
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
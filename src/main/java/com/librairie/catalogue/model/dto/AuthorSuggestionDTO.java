@@ -0,0 +1,16 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorSuggestionDTO {
+    private Long id;
+    private String name;
+    private long bookCount;
+}
@@ -1,8 +1,10 @@
 package com.librairie.catalogue.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.librairie.catalogue.validation.UniqueISBN;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,13 +14,15 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookDTO {
+    public static final String ISBN_REGEX = "^\\w{10}(\\w{3})?$";
+
     @NotBlank(message = "ISBN is mandatory")
     @Pattern(
-            regexp = "^\\w{10}(\\w{3})?$",
+            regexp = ISBN_REGEX,
             message = "ISBN format should be ISBN-10 or ISBN-13 format"
     )
     @UniqueISBN
@@ -26,6 +30,13 @@ public class BookDTO {
     private String title;
     private List<String> authors;
     private LocalDate publicationDate;
+    // Length of the summary column
+    @Size(max = 5000, message = "Summary should not exceed 5000 characters")
     private String summary;
     private int pageCount;
+    // Incremented on every write of the book, sending it back on update rejects the update if it changed meanwhile
+    private Long version;
+    // Only used to tell apart a book deleted then created again under the same ISBN
+    @JsonIgnore
+    private Long id;
 }
@@ -0,0 +1,82 @@
+package com.librairie.catalogue.model.dto;
+
+import com.librairie.catalogue.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Fields of {@link BookDTO} a client can restrict a list of books to, ex. {@code ?fields=isbn,title}. All of them
+ * but the authors are columns of the book table, the authors are a join only loaded when asked for.
+ */
+public enum BookField {
+    ISBN("isbn", BookDTO::getIsbn, (book, value) -> book.setIsbn((String) value)),
+    TITLE("title", BookDTO::getTitle, (book, value) -> book.setTitle((String) value)),
+    AUTHORS("authors", BookDTO::getAuthors, null),
+    PUBLICATION_DATE("publicationDate", BookDTO::getPublicationDate, (book, value) -> book.setPublicationDate((LocalDate) value)),
+    SUMMARY("summary", BookDTO::getSummary, (book, value) -> book.setSummary((String) value)),
+    PAGE_COUNT("pageCount", BookDTO::getPageCount, (book, value) -> book.setPageCount((Integer) value)),
+    VERSION("version", BookDTO::getVersion, (book, value) -> book.setVersion((Long) value));
+
+    // The whole book
+    public static final Set<BookField> ALL = Collections.unmodifiableSet(EnumSet.allOf(BookField.class));
+
+    private final String name;
+    private final Function<BookDTO, Object> getter;
+    private final BiConsumer<BookDTO, Object> setter;
+
+    BookField(String name, Function<BookDTO, Object> getter, BiConsumer<BookDTO, Object> setter) {
+        this.name = name;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    // Name of the JSON property, and of the Book attribute for the columns
+    public String getName() {
+        return name;
+    }
+
+    public boolean isColumn() {
+        return setter != null;
+    }
+
+    public void set(BookDTO book, Object value) {
+        setter.accept(book, value);
+    }
+
+    /**
+     * The fields of a comma separated list of names, null when there is no list: the whole book is wanted.
+     */
+    public static Set<BookField> parse(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        Set<BookField> parsed = EnumSet.noneOf(BookField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.strip();
+            parsed.add(Arrays.stream(values())
+                    .filter(field -> field.name.equals(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestException("Unknown book field: " + trimmed)));
+        }
+        return parsed;
+    }
+
+    /**
+     * The given fields of the book, in declaration order, as serialized in place of the book.
+     */
+    public static Map<String, Object> toMap(BookDTO book, Set<BookField> fields) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (BookField field : fields) {
+            map.put(field.name, field.getter.apply(book));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,17 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPageDTO {
+    private List<BookDTO> books;
+    private String nextCursor;
+}
@@ -0,0 +1,27 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Partial update of a book: the fields left null, or not sent, are not changed. An empty list of authors
+ * removes them all.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPatchDTO {
+    private String title;
+    private List<String> authors;
+    private LocalDate publicationDate;
+    private String summary;
+    private Integer pageCount;
+    // Rejects the patch if the book changed meanwhile, like on update
+    private Long version;
+}
@@ -0,0 +1,41 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchCriteria {
+
+    public enum Match {
+        // Books matching every criterion
+        ALL,
+        // Books matching at least one criterion
+        ANY
+    }
+
+    private String title;
+    private String author;
+    private LocalDate publishedFrom;
+    private LocalDate publishedTo;
+    private Integer minPages;
+    private Integer maxPages;
+    @Builder.Default
+    private Match match = Match.ALL;
+
+    /**
+     * Whether more than a title or an author is asked for, a single one of them keeps its own search.
+     */
+    public boolean isCombined() {
+        boolean hasTitle = title != null && !title.isBlank();
+        boolean hasAuthor = author != null && !author.isBlank();
+        return (hasTitle && hasAuthor) || publishedFrom != null || publishedTo != null
+                || minPages != null || maxPages != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDTO {
+    private String isbn;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+}
@@ -0,0 +1,20 @@
+package com.librairie.catalogue.model.dto;
+
+import com.librairie.catalogue.model.ChangeLogEntry;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+    private ChangeLogEntry.Resource resource;
+    private ChangeLogEntry.ChangeType type;
+    private String resourceId;
+    private Instant recordedAt;
+}
@@ -0,0 +1,18 @@
+package com.librairie.catalogue.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangePageDTO {
+    private List<ChangeDTO> changes;
+    // Always set, the cursor to read the changes recorded after this page from
+    private String nextCursor;
+}
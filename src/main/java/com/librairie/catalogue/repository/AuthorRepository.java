@@ -1,10 +1,38 @@
 package com.librairie.catalogue.repository;
 
 import com.librairie.catalogue.model.Author;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AuthorRepository extends JpaRepository<Author, Long> {
+    // Authors are seldom written, the results stay cached until one is
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Author> findByNameIgnoreCase(String name);
+
+    // Straight into the DTOs, the authors are neither managed nor mapped
+    @Query("select new com.librairie.catalogue.model.dto.AuthorDTO(a.name) from Author a")
+    List<AuthorDTO> findAllAsDTOs();
+
+    // Names must be lower cased by the caller, one query for a whole set of names
+    @Query("select a from Author a where lower(a.name) in :names")
+    List<Author> findByLowerCaseNameIn(Collection<String> names);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + BookRepository.STREAM_FETCH_SIZE))
+    @Query("select a.id as id, a.name as name, count(b) as bookCount from Author a left join a.books b group by a.id, a.name")
+    Stream<AuthorSuggestionView> streamAllForSuggestions();
+
+    // Autocomplete fallback while the trie is not built, neither accent insensitive nor backed by an index
+    @Query("select a.id as id, a.name as name, count(b) as bookCount from Author a left join a.books b"
+            + " where lower(a.name) like lower(concat(:prefix, '%')) group by a.id, a.name order by count(b) desc, a.name")
+    List<AuthorSuggestionView> findSuggestions(String prefix, Limit limit);
 }
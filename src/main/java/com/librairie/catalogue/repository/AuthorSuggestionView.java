@@ -0,0 +1,10 @@
+package com.librairie.catalogue.repository;
+
+/**
+ * Author with the number of books it wrote, fed to the autocomplete.
+ */
+public interface AuthorSuggestionView {
+    Long getId();
+    String getName();
+    long getBookCount();
+}
@@ -0,0 +1,8 @@
+package com.librairie.catalogue.repository;
+
+/**
+ * Closed projection used to select book ids only, the matching books are hydrated afterwards.
+ */
+public interface BookIdView {
+    Long getId();
+}
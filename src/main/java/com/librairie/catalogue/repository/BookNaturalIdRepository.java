@@ -0,0 +1,16 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.Book;
+
+import java.util.Optional;
+
+/**
+ * Lookups of books by their natural id, the ISBN, served by the second-level cache when the book is in it.
+ */
+public interface BookNaturalIdRepository {
+    // Authors are loaded lazily, from the cached collection when there is one
+    Optional<Book> findByIsbn(String isbn);
+
+    // Read from the database with its authors, and put back in the cache: a write checks the persisted version
+    Optional<Book> findByIsbnForUpdate(String isbn);
+}
@@ -0,0 +1,38 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.Book;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+class BookNaturalIdRepositoryImpl implements BookNaturalIdRepository {
+    private final EntityManager entityManager;
+
+    BookNaturalIdRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Book> findByIsbn(String isbn) {
+        // A query by ISBN would always reach the database, the natural id is first resolved from the cache
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbn);
+    }
+
+    @Override
+    public Optional<Book> findByIsbnForUpdate(String isbn) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        // The cached book may be behind a write of another instance
+        session.setCacheMode(CacheMode.REFRESH);
+        try {
+            Optional<Book> book = session.bySimpleNaturalId(Book.class).loadOptional(isbn);
+            book.ifPresent(found -> Hibernate.initialize(found.getAuthors()));
+            return book;
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+}
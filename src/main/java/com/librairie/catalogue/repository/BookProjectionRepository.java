@@ -0,0 +1,23 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Books read straight into DTOs, without entities: nothing enters the persistence context, so nothing is
+ * dirty-checked or mapped. Only the columns of the given fields are selected, {@link BookField#ALL} for whole books,
+ * and the authors are only read, by a second query, when asked for. The id and the ISBN are always set, in no
+ * particular order.
+ */
+public interface BookProjectionRepository {
+    List<BookDTO> findFieldsByIdIn(Collection<Long> ids, Set<BookField> fields);
+
+    List<BookDTO> findFieldsByIsbnIn(Collection<String> isbns, Set<BookField> fields);
+
+    Optional<BookDTO> findDTOByIsbn(String isbn);
+}
@@ -0,0 +1,70 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+class BookProjectionRepositoryImpl implements BookProjectionRepository {
+    private final EntityManager entityManager;
+
+    BookProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<BookDTO> findFieldsByIdIn(Collection<Long> ids, Set<BookField> fields) {
+        return find("b.id", ids, fields);
+    }
+
+    @Override
+    public List<BookDTO> findFieldsByIsbnIn(Collection<String> isbns, Set<BookField> fields) {
+        return find("b.isbn", isbns, fields);
+    }
+
+    @Override
+    public Optional<BookDTO> findDTOByIsbn(String isbn) {
+        return find("b.isbn", List.of(isbn), BookField.ALL).stream().findFirst();
+    }
+
+    // Scalar rows, nothing enters the persistence context. The authors are read by a second query on the ids:
+    // joined in, every column of a book, its summary included, would come again for each of its authors.
+    private List<BookDTO> find(String key, Collection<?> keys, Set<BookField> fields) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<BookField> columns = fields.stream().filter(field -> field.isColumn() && field != BookField.ISBN).toList();
+        StringBuilder jpql = new StringBuilder("select b.id, b.isbn");
+        columns.forEach(column -> jpql.append(", b.").append(column.getName()));
+        jpql.append(" from Book b where ").append(key).append(" in :keys");
+
+        List<Object[]> rows = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setParameter("keys", keys)
+                .getResultList();
+        Map<Long, BookDTO> books = new HashMap<>(rows.size());
+        for (Object[] row : rows) {
+            BookDTO book = new BookDTO();
+            book.setId((Long) row[0]);
+            book.setIsbn((String) row[1]);
+            for (int i = 0; i < columns.size(); i++) {
+                columns.get(i).set(book, row[i + 2]);
+            }
+            books.put(book.getId(), book);
+        }
+        if (fields.contains(BookField.AUTHORS) && !books.isEmpty()) {
+            books.values().forEach(book -> book.setAuthors(new ArrayList<>()));
+            entityManager.createQuery("select b.id, a.name from Book b join b.authors a where b.id in :ids", Object[].class)
+                    .setParameter("ids", books.keySet())
+                    .getResultList()
+                    .forEach(row -> books.get((Long) row[0]).getAuthors().add((String) row[1]));
+        }
+        return new ArrayList<>(books.values());
+    }
+}
@@ -1,15 +1,75 @@
 package com.librairie.catalogue.repository;
 
 import com.librairie.catalogue.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookRepository extends JpaRepository<Book, Long>, BookNaturalIdRepository, BookProjectionRepository {
+    int STREAM_FETCH_SIZE = 500;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
     boolean existsByIsbn(String isbn);
     void deleteByIsbn(String isbn);
-    Optional<Book> findByIsbn(String isbn);
-    List<Book> findByAuthorsNameContainingIgnoreCase(String authorsName);
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    Optional<BookVersionView> findVersionByIsbn(String isbn);
+    @EntityGraph(attributePaths = "authors")
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    // Keyset pagination: callers pass the last seen id, the index on the primary key does the rest.
+    // Only ids are selected, the page is then read into DTOs by findFieldsByIdIn.
+    List<BookIdView> findIdsByIdGreaterThanOrderByIdAsc(long lastId, Limit limit);
+    List<BookIdView> findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(long lastId, String title, Limit limit);
+    List<BookIdView> findDistinctIdsByIdGreaterThanAndAuthorsNameContainingIgnoreCaseOrderByIdAsc(long lastId, String authorsName, Limit limit);
+    // Full text fallback while the search index is not built, a full scan
+    @Query("select b.id as id from Book b where b.id > :lastId and (lower(b.title) like lower(concat('%', :text, '%'))"
+            + " or lower(b.summary) like lower(concat('%', :text, '%'))) order by b.id")
+    List<BookIdView> findIdsByText(long lastId, String text, Limit limit);
+
+    // One query per criterion of a combined search, bare ids to be intersected or merged in memory.
+    // The title is matched literally like the derived title search, wildcards must be escaped with a backslash.
+    @Query("select b.id from Book b where b.id > :lastId and lower(b.title) like lower(concat('%', :title, '%')) escape '\\' order by b.id")
+    List<Long> findIdsByTitleContaining(long lastId, String title, Limit limit);
+    @Query("select distinct b.id from Book b join b.authors a where b.id > :lastId"
+            + " and lower(a.name) like lower(concat('%', :author, '%')) order by b.id")
+    List<Long> findIdsByAuthorContaining(long lastId, String author, Limit limit);
+    @Query("select b.id from Book b where b.id > :lastId and b.publicationDate between :from and :to order by b.id")
+    List<Long> findIdsByPublicationDateBetween(long lastId, LocalDate from, LocalDate to, Limit limit);
+    @Query("select b.id from Book b where b.id > :lastId and b.pageCount between :min and :max order by b.id")
+    List<Long> findIdsByPageCountBetween(long lastId, int min, int max, Limit limit);
+
+    // Must be consumed inside a transaction, the fetch size keeps the driver from buffering the whole result set.
+    // Streamed books stay out of the second-level cache, they would evict the books being read.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    // Author names are part of the books, renaming an author must change the version, hence the ETag, of its books
+    @Modifying
+    @Query("update Book b set b.version = b.version + 1 where b.id in (select book.id from Book book join book.authors a where a.id = :authorId)")
+    int incrementVersionsByAuthorId(Long authorId);
+
+    @Query("select b.isbn from Book b join b.authors a where a.id = :authorId")
+    List<String> findIsbnsByAuthorId(Long authorId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select b.isbn from Book b")
+    Stream<String> streamAllIsbns();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("select b.isbn as isbn, b.title as title, b.summary as summary from Book b")
+    Stream<BookSearchView> streamAllForSearch();
 }
@@ -0,0 +1,10 @@
+package com.librairie.catalogue.repository;
+
+/**
+ * Fields of a book fed to the search index.
+ */
+public interface BookSearchView {
+    String getIsbn();
+    String getTitle();
+    String getSummary();
+}
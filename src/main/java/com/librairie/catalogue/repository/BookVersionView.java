@@ -0,0 +1,9 @@
+package com.librairie.catalogue.repository;
+
+/**
+ * Identity and version of a book, enough to compute its ETag.
+ */
+public interface BookVersionView {
+    Long getId();
+    Long getVersion();
+}
@@ -0,0 +1,12 @@
+package com.librairie.catalogue.repository;
+
+import java.time.Instant;
+
+/**
+ * Position of the change log: its last settled entry, no later entry can be committed before it, and the
+ * number of entries recorded since, which may still grow out of order.
+ */
+public interface ChangeLogPosition {
+    Instant getLastSettled();
+    long getRecentCount();
+}
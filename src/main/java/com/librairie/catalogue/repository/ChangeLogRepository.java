@@ -0,0 +1,25 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    // Keyset page on the (recorded_at, id) index, entries recorded from until on are not settled yet
+    @Query("select c from ChangeLogEntry c where c.recordedAt < :until"
+            + " and (c.recordedAt > :after or (c.recordedAt = :after and c.id > :lastId)) order by c.recordedAt, c.id")
+    List<ChangeLogEntry> findAfter(Instant after, long lastId, Instant until, Limit limit);
+
+    Optional<ChangeLogEntry> findFirstByRecordedAtLessThanOrderByRecordedAtDescIdDesc(Instant until);
+
+    // Both read on the (recorded_at, id) index, the entries recorded from until on are only counted
+    @Query("select max(c.recordedAt) as lastSettled,"
+            + " (select count(r) from ChangeLogEntry r where r.recordedAt >= :until) as recentCount"
+            + " from ChangeLogEntry c where c.recordedAt < :until")
+    ChangeLogPosition findPosition(Instant until);
+}
@@ -0,0 +1,178 @@
+package com.librairie.catalogue.search;
+
+import com.librairie.catalogue.config.AuthorSuggestProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.repository.AuthorSuggestionView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link AuthorTrie} in line with the authors and their book counts. It is loaded once the
+ * application is ready and then follows the committed author and book writes. Suggestions must come from
+ * the database until {@link #isReady()}.
+ */
+@Component
+public class AuthorSuggestIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthorSuggestIndex.class);
+
+    private final AuthorRepository authorRepository;
+    private final AuthorSuggestProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Guards the switch between the current and the rebuilt trie, changes committed meanwhile are replayed
+    private final ReentrantLock changesLock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile AuthorTrie trie;
+    private List<Object> pendingChanges;
+
+    public AuthorSuggestIndex(AuthorRepository authorRepository, AuthorSuggestProperties properties,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.authorRepository = authorRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("catalogue.author.suggest.authors", this, AuthorSuggestIndex::size)
+                .description("Authors held by the autocomplete trie")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return properties.isEnabled() && trie != null;
+    }
+
+    public List<AuthorTrie.Suggestion> suggest(String prefix, int limit) {
+        AuthorTrie current = trie;
+        if (current == null) {
+            throw new IllegalStateException("Author suggestions are not built yet");
+        }
+        return current.suggest(prefix, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        onChange(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        onChange(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            changesLock.lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                changesLock.unlock();
+            }
+            AuthorTrie rebuilt = new AuthorTrie(properties.getTopSize());
+            boolean loaded = false;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<AuthorSuggestionView> authors = authorRepository.streamAllForSuggestions()) {
+                        rebuilt.putAll(authors.map(author -> new AuthorTrie.Suggestion(author.getId(),
+                                author.getName(), (int) author.getBookCount())));
+                    }
+                });
+                loaded = true;
+            } finally {
+                changesLock.lock();
+                try {
+                    if (loaded) {
+                        // Author changes are idempotent. Book counts are only a ranking hint: a book committed
+                        // between the start of the rebuild and the load query is counted twice.
+                        pendingChanges.forEach(event -> apply(rebuilt, event));
+                        trie = rebuilt;
+                    }
+                } finally {
+                    pendingChanges = null;
+                    changesLock.unlock();
+                }
+            }
+            LOGGER.info("Author suggestions built with {} authors", rebuilt.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    int size() {
+        AuthorTrie current = trie;
+        return current == null ? 0 : current.size();
+    }
+
+    private void onChange(Object event) {
+        changesLock.lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+            AuthorTrie current = trie;
+            if (current != null) {
+                apply(current, event);
+            }
+        } finally {
+            changesLock.unlock();
+        }
+    }
+
+    private static void apply(AuthorTrie target, Object event) {
+        if (event instanceof AuthorChangedEvent author) {
+            switch (author.type()) {
+                case CREATED -> target.put(author.id(), author.name(), 0);
+                case UPDATED -> target.rename(author.id(), author.previousName(), author.name());
+                case DELETED -> target.remove(author.id(), author.name());
+            }
+        } else if (event instanceof BookChangedEvent book) {
+            List<String> authors = book.book() == null || book.book().getAuthors() == null
+                    ? List.of()
+                    : book.book().getAuthors();
+            // Authors kept by an update leave their count untouched
+            Set<String> added = new HashSet<>(authors);
+            book.previousAuthors().forEach(added::remove);
+            Set<String> removed = new HashSet<>(book.previousAuthors());
+            authors.forEach(removed::remove);
+            added.forEach(name -> target.addBooks(name, 1));
+            removed.forEach(name -> target.addBooks(name, -1));
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("author-suggest-rebuild").start(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to build the author suggestions", e);
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.librairie.catalogue.search;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Radix trie of the normalized author names, answering the most prolific authors for a name prefix.
+ * <p>
+ * Nodes only hold a top of their subtree when it has more authors than the top size, smaller subtrees are
+ * walked at query time: about one node per top size authors carries a top, the others only cost their edge
+ * label. Authors are stored in parallel arrays and referenced by slot. Reads share a lock, writes are
+ * exclusive.
+ */
+public final class AuthorTrie {
+
+    public record Suggestion(long id, String name, int bookCount) {
+    }
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    // Separates the normalized name from the author id, so that homonyms get their own leaf
+    private static final char ID_SEPARATOR = '\0';
+    private static final int INITIAL_CAPACITY = 1_024;
+
+    private final int topSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node(new char[0]);
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] bookCounts = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int size;
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    public AuthorTrie(int topSize) {
+        this.topSize = topSize;
+    }
+
+    /**
+     * Adds the author unless it is already known, in which case its book count is kept.
+     */
+    public void put(long id, String name, int bookCount) {
+        lock.writeLock().lock();
+        try {
+            if (add(id, name, bookCount)) {
+                refreshTops(path(key(name, id)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the authors in one go, the tops being computed once all of them are in.
+     */
+    public void putAll(Stream<Suggestion> authors) {
+        lock.writeLock().lock();
+        try {
+            authors.forEach(author -> add(author.id(), author.name(), author.bookCount()));
+            refreshAllTops(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the author under its new name with its book count, or adds it if its previous name is unknown.
+     */
+    public void rename(long id, String previousName, String name) {
+        lock.writeLock().lock();
+        try {
+            int bookCount = 0;
+            List<Node> path = path(key(previousName, id));
+            if (path != null) {
+                bookCount = bookCounts[path.getLast().slot];
+                removeLeaf(path);
+            }
+            if (add(id, name, bookCount)) {
+                refreshTops(path(key(name, id)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id, String name) {
+        lock.writeLock().lock();
+        try {
+            List<Node> path = path(key(name, id));
+            if (path != null) {
+                removeLeaf(path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the delta to the book count of the author with exactly this name, ignoring unknown names.
+     */
+    public void addBooks(String name, int delta) {
+        lock.writeLock().lock();
+        try {
+            // Every key below this node belongs to an author with the same normalized name
+            Node homonyms = find(normalize(name) + ID_SEPARATOR);
+            int slot = homonyms == null ? -1 : slotNamed(homonyms, name);
+            if (slot >= 0) {
+                bookCounts[slot] = Math.max(0, bookCounts[slot] + delta);
+                refreshTops(path(key(name, ids[slot])));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Authors whose normalized name starts with the normalized prefix, most books first then by name. No
+     * more than the top size are returned.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = find(normalized);
+            if (node == null) {
+                return List.of();
+            }
+            int[] slots = node.top != null ? node.top : collect(node);
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, slots.length));
+            for (int i = 0; i < slots.length && i < limit; i++) {
+                int slot = slots[i];
+                suggestions.add(new Suggestion(ids[slot], names[slot], bookCounts[slot]));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String key(String name, long id) {
+        return normalize(name) + ID_SEPARATOR + Long.toString(id, Character.MAX_RADIX);
+    }
+
+    // Inserts the author without refreshing the tops, false if it is already there
+    private boolean add(long id, String name, int bookCount) {
+        String key = key(name, id);
+        if (path(key) != null) {
+            return false;
+        }
+        int slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+        ensureCapacity(slotCount);
+        ids[slot] = id;
+        names[slot] = name;
+        bookCounts[slot] = Math.max(0, bookCount);
+        size++;
+
+        Node node = root;
+        int offset = 0;
+        while (true) {
+            Node child = node.child(key.charAt(offset));
+            if (child == null) {
+                Node leaf = new Node(key.substring(offset).toCharArray());
+                leaf.slot = slot;
+                node.addChild(leaf);
+                return true;
+            }
+            int common = commonPrefix(child.label, key, offset);
+            if (common < child.label.length) {
+                child = node.split(child, common);
+            }
+            offset += common;
+            if (offset == key.length()) {
+                // A key can be the prefix of another one, the id of the shorter one being a prefix of the other id
+                child.slot = slot;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    private void removeLeaf(List<Node> path) {
+        Node leaf = path.getLast();
+        names[leaf.slot] = null;
+        freeSlots.push(leaf.slot);
+        leaf.slot = -1;
+        size--;
+
+        Node parent = path.get(path.size() - 2);
+        if (leaf.children == null) {
+            parent.removeChild(leaf);
+            path.removeLast();
+            // A parent left with a single child and no author of its own is no longer needed as a branch
+            if (parent != root && parent.slot < 0 && parent.children != null && parent.children.length == 1) {
+                parent.mergeWithOnlyChild();
+            }
+        } else if (leaf.children.length == 1) {
+            leaf.mergeWithOnlyChild();
+        }
+        refreshTops(path);
+    }
+
+    // Nodes from the root to the one holding exactly this key, null if it holds no author
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            node = node.child(key.charAt(offset));
+            if (node == null || commonPrefix(node.label, key, offset) < node.label.length) {
+                return null;
+            }
+            offset += node.label.length;
+            path.add(node);
+        }
+        return node.slot >= 0 ? path : null;
+    }
+
+    // Highest node whose keys all start with the prefix, the prefix possibly ending inside its label
+    private Node find(String prefix) {
+        Node node = root;
+        int offset = 0;
+        while (offset < prefix.length()) {
+            node = node.child(prefix.charAt(offset));
+            if (node == null) {
+                return null;
+            }
+            int common = commonPrefix(node.label, prefix, offset);
+            if (common < node.label.length && offset + common < prefix.length()) {
+                return null;
+            }
+            offset += common;
+        }
+        return node;
+    }
+
+    private int slotNamed(Node node, String name) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.slot >= 0 && names[current.slot].equals(name)) {
+                return current.slot;
+            }
+            if (current.children != null) {
+                for (Node child : current.children) {
+                    pending.push(child);
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Recomputes the subtree sizes and tops, from the deepest node of the path up to the root
+    private void refreshTops(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            refreshTop(path.get(i));
+        }
+    }
+
+    // Post-order walk of the whole trie, children are refreshed before their parent
+    private void refreshAllTops(Node start) {
+        Deque<Node> pending = new ArrayDeque<>();
+        Deque<Node> refreshOrder = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            refreshOrder.push(node);
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    pending.push(child);
+                }
+            }
+        }
+        refreshOrder.forEach(this::refreshTop);
+    }
+
+    private void refreshTop(Node node) {
+        int subtreeSize = node.slot >= 0 ? 1 : 0;
+        if (node.children != null) {
+            for (Node child : node.children) {
+                subtreeSize += child.subtreeSize;
+            }
+        }
+        node.subtreeSize = subtreeSize;
+        node.top = subtreeSize > topSize ? mergeChildren(node) : null;
+    }
+
+    private int[] mergeChildren(Node node) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(topSize + 1, this::compareWorstFirst);
+        if (node.slot >= 0) {
+            best.add(node.slot);
+        }
+        for (Node child : node.children) {
+            for (int slot : child.top != null ? child.top : collect(child)) {
+                offer(best, slot);
+            }
+        }
+        return drain(best);
+    }
+
+    // Walk of a subtree small enough not to hold a top, none of its nodes holds one either
+    private int[] collect(Node node) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(topSize + 1, this::compareWorstFirst);
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node current = pending.pop();
+            if (current.slot >= 0) {
+                offer(best, current.slot);
+            }
+            if (current.children != null) {
+                for (Node child : current.children) {
+                    pending.push(child);
+                }
+            }
+        }
+        return drain(best);
+    }
+
+    private void offer(PriorityQueue<Integer> best, int slot) {
+        if (best.size() < topSize) {
+            best.add(slot);
+        } else if (compareWorstFirst(slot, best.peek()) > 0) {
+            best.poll();
+            best.add(slot);
+        }
+    }
+
+    private int[] drain(PriorityQueue<Integer> best) {
+        int[] slots = new int[best.size()];
+        for (int i = slots.length - 1; i >= 0; i--) {
+            slots[i] = best.poll();
+        }
+        return slots;
+    }
+
+    // Fewer books first, and for as many books the last name in alphabetical order first
+    private int compareWorstFirst(int left, int right) {
+        int byCount = Integer.compare(bookCounts[left], bookCounts[right]);
+        return byCount != 0 ? byCount : names[right].compareTo(names[left]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            int newLength = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newLength);
+            names = Arrays.copyOf(names, newLength);
+            bookCounts = Arrays.copyOf(bookCounts, newLength);
+        }
+    }
+
+    private static int commonPrefix(char[] label, String key, int offset) {
+        int length = Math.min(label.length, key.length() - offset);
+        int i = 0;
+        while (i < length && label[i] == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private char[] label;
+        // Sorted by first label character
+        private Node[] children;
+        private int slot = -1;
+        private int subtreeSize;
+        private int[] top;
+
+        private Node(char[] label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            if (children == null) {
+                return null;
+            }
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = children[middle].label[0];
+                if (candidate < first) {
+                    low = middle + 1;
+                } else if (candidate > first) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            if (children == null) {
+                children = new Node[]{child};
+                return;
+            }
+            int index = 0;
+            while (index < children.length && children[index].label[0] < child.label[0]) {
+                index++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void removeChild(Node child) {
+            if (children.length == 1) {
+                children = null;
+                return;
+            }
+            Node[] shrunk = new Node[children.length - 1];
+            int index = 0;
+            for (Node candidate : children) {
+                if (candidate != child) {
+                    shrunk[index++] = candidate;
+                }
+            }
+            children = shrunk;
+        }
+
+        // Cuts the child label after the given length, the remainder becomes the child of the new node
+        private Node split(Node child, int length) {
+            Node middle = new Node(Arrays.copyOf(child.label, length));
+            child.label = Arrays.copyOfRange(child.label, length, child.label.length);
+            middle.children = new Node[]{child};
+            middle.subtreeSize = child.subtreeSize;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    children[i] = middle;
+                }
+            }
+            return middle;
+        }
+
+        private void mergeWithOnlyChild() {
+            Node child = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+            label = merged;
+            children = child.children;
+            slot = child.slot;
+            top = child.top;
+            subtreeSize = child.subtreeSize;
+        }
+    }
+}
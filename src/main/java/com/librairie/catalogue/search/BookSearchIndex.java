@@ -0,0 +1,166 @@
+package com.librairie.catalogue.search;
+
+import com.librairie.catalogue.config.SearchIndexProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.repository.BookSearchView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link InvertedIndex} in line with the catalogue. It is loaded once the application is
+ * ready and then follows the committed book writes. Searches must fall back to the database until
+ * {@link #isReady()}.
+ */
+@Component
+public class BookSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private final BookRepository bookRepository;
+    private final SearchIndexProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Guards the switch between the current and the rebuilt index, changes committed meanwhile are replayed
+    private final ReentrantLock changesLock = new ReentrantLock();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile InvertedIndex index;
+    private List<BookChangedEvent> pendingChanges;
+
+    public BookSearchIndex(BookRepository bookRepository, SearchIndexProperties properties,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.bookRepository = bookRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("catalogue.search.index.books", this, BookSearchIndex::size)
+                .description("Books held by the search index")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return properties.isEnabled() && index != null;
+    }
+
+    public List<InvertedIndex.Hit> search(String query, Set<InvertedIndex.Field> fields, int offset, int limit) {
+        InvertedIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Search index is not built yet");
+        }
+        return current.search(query, fields, offset, limit);
+    }
+
+    public List<InvertedIndex.Hit> searchTitle(String text, int offset, int limit) {
+        InvertedIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Search index is not built yet");
+        }
+        return current.searchTitle(text, offset, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        changesLock.lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+            InvertedIndex current = index;
+            if (current != null) {
+                apply(current, event);
+                if (current.deletedCount() > current.size() * properties.getRebuildDeletedRatio()) {
+                    scheduleRebuild();
+                }
+            }
+        } finally {
+            changesLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            changesLock.lock();
+            try {
+                pendingChanges = new ArrayList<>();
+            } finally {
+                changesLock.unlock();
+            }
+            InvertedIndex rebuilt = new InvertedIndex(properties.getTitleWeight());
+            boolean loaded = false;
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<BookSearchView> books = bookRepository.streamAllForSearch()) {
+                        books.forEach(book -> rebuilt.put(book.getIsbn(), book.getTitle(), book.getSummary()));
+                    }
+                });
+                loaded = true;
+            } finally {
+                changesLock.lock();
+                try {
+                    if (loaded) {
+                        // The stream may or may not have seen these changes, applying them again is harmless
+                        pendingChanges.forEach(event -> apply(rebuilt, event));
+                        index = rebuilt;
+                    }
+                } finally {
+                    pendingChanges = null;
+                    changesLock.unlock();
+                }
+            }
+            LOGGER.info("Search index built with {} books", rebuilt.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    int size() {
+        InvertedIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    private static void apply(InvertedIndex target, BookChangedEvent event) {
+        if (event.type() == BookChangedEvent.ChangeType.DELETED) {
+            target.remove(event.isbn());
+        } else {
+            target.put(event.isbn(), event.book().getTitle(), event.book().getSummary());
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("search-index-rebuild").start(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Unable to build the search index", e);
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+}
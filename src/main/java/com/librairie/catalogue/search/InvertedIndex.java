@@ -0,0 +1,416 @@
+package com.librairie.catalogue.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory inverted index of book titles and summaries, keyed by ISBN and ranked with BM25F: term
+ * frequencies of both fields are normalized by the field length, weighted, then saturated together.
+ * <p>
+ * Documents get increasing internal ids, so postings lists are sorted by construction and multi-term
+ * queries are answered by intersecting them. Titles are also indexed by their lower cased trigrams, for the substring
+ * matches of the title search. Replacing or removing a book only marks its previous
+ * document as deleted, the owner is expected to rebuild the index once too many of them pile up.
+ * Reads share a lock, writes are exclusive.
+ */
+public final class InvertedIndex {
+
+    public enum Field {
+        TITLE,
+        SUMMARY
+    }
+
+    public record Hit(String isbn, double score) {
+    }
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double MIN_IDF = 1e-6;
+    private static final int INITIAL_CAPACITY = 1_024;
+    /**
+     * Shortest text a title search accepts, shorter ones have no trigram to look up.
+     */
+    public static final int MIN_TITLE_SEARCH_LENGTH = 3;
+
+    private final double titleWeight;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> documents = new HashMap<>();
+    private final Map<String, DocumentList> titleTrigrams = new HashMap<>();
+
+    private String[] isbns = new String[INITIAL_CAPACITY];
+    // Lower cased titles, the documents sharing every trigram of a title search are checked against them
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private int[] titleLengths = new int[INITIAL_CAPACITY];
+    private int[] summaryLengths = new int[INITIAL_CAPACITY];
+    private final BitSet deleted = new BitSet();
+    private int documentCount;
+    private long totalTitleLength;
+    private long totalSummaryLength;
+
+    public InvertedIndex(double titleWeight) {
+        this.titleWeight = titleWeight;
+    }
+
+    /**
+     * Indexes the book, replacing any previous version of it.
+     */
+    public void put(String isbn, String title, String summary) {
+        List<String> titleTerms = Tokenizer.tokenize(title);
+        List<String> summaryTerms = Tokenizer.tokenize(summary);
+        // Term frequencies, title in the high half and summary in the low half
+        Map<String, Integer> frequencies = new HashMap<>();
+        titleTerms.forEach(term -> frequencies.merge(term, 1 << 16, InvertedIndex::addFrequencies));
+        summaryTerms.forEach(term -> frequencies.merge(term, 1, InvertedIndex::addFrequencies));
+        String lowerCaseTitle = title == null ? null : title.toLowerCase(Locale.ROOT);
+        Set<String> trigrams = trigrams(lowerCaseTitle);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(isbn);
+            int document = documentCount++;
+            ensureCapacity(documentCount);
+            isbns[document] = isbn;
+            titles[document] = lowerCaseTitle;
+            titleLengths[document] = titleTerms.size();
+            summaryLengths[document] = summaryTerms.size();
+            totalTitleLength += titleTerms.size();
+            totalSummaryLength += summaryTerms.size();
+            documents.put(isbn, document);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new Postings()).add(document, frequency));
+            trigrams.forEach(trigram -> titleTrigrams.computeIfAbsent(trigram, key -> new DocumentList()).add(document));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Books holding every term of the query in one of the given fields, best scores first. Ties are
+     * broken by indexing order so that paging through the same results is stable.
+     */
+    public List<Hit> search(String query, Set<Field> fields, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || fields.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean inTitle = fields.contains(Field.TITLE);
+        boolean inSummary = fields.contains(Field.SUMMARY);
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            // Walk the rarest term, the others are only probed
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            int liveCount = documents.size();
+            double averageTitleLength = Math.max(1, (double) totalTitleLength / Math.max(1, liveCount));
+            double averageSummaryLength = Math.max(1, (double) totalSummaryLength / Math.max(1, liveCount));
+            double[] idf = new double[lists.size()];
+            for (int t = 0; t < lists.size(); t++) {
+                int documentFrequency = lists.get(t).size;
+                // Deleted documents still count in the frequency until the next rebuild, keep the weight positive
+                idf[t] = Math.max(MIN_IDF, Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5)));
+            }
+
+            int wanted = offset + limit;
+            // Min heap on the score, its head is the weakest of the best hits found so far
+            PriorityQueue<long[]> best = new PriorityQueue<>(Math.min(wanted + 1, INITIAL_CAPACITY),
+                    InvertedIndex::compareWorstFirst);
+            int[] positions = new int[lists.size()];
+            Postings lead = lists.getFirst();
+            candidates:
+            while (positions[0] < lead.size) {
+                int document = lead.documents[positions[0]];
+                // Leapfrog: a list ahead of the candidate moves the rarest list forward to its document
+                for (int t = 1; t < lists.size(); t++) {
+                    Postings list = lists.get(t);
+                    positions[t] = list.seek(document, positions[t]);
+                    if (positions[t] >= list.size) {
+                        break candidates;
+                    }
+                    if (list.documents[positions[t]] != document) {
+                        positions[0] = lead.seek(list.documents[positions[t]], positions[0] + 1);
+                        continue candidates;
+                    }
+                }
+                positions[0]++;
+                if (deleted.get(document)) {
+                    continue;
+                }
+                double score = score(lists, positions, idf, document, inTitle, inSummary,
+                        averageTitleLength, averageSummaryLength);
+                if (score == 0) {
+                    // A term is only present in a field left out of the query
+                    continue;
+                }
+                long[] hit = {Double.doubleToLongBits(score), document};
+                if (best.size() < wanted) {
+                    best.add(hit);
+                } else if (compareWorstFirst(hit, best.peek()) > 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                long[] hit = best.poll();
+                hits.add(new Hit(isbns[(int) hit[1]], Double.longBitsToDouble(hit[0])));
+            }
+            Collections.reverse(hits);
+            return offset >= hits.size() ? List.of() : List.copyOf(hits.subList(offset, hits.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Books whose title contains the text whatever the case, the same books as a {@code like '%text%'} on the
+     * lower cased title. Only the documents holding every trigram of the text are checked, the text must be at
+     * least {@link #MIN_TITLE_SEARCH_LENGTH} characters long. Titles holding whole words of the text come first,
+     * then indexing order.
+     */
+    public List<Hit> searchTitle(String text, int offset, int limit) {
+        String needle = text.toLowerCase(Locale.ROOT);
+        if (needle.length() < MIN_TITLE_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Title searches need at least " + MIN_TITLE_SEARCH_LENGTH + " characters");
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        Set<String> trigrams = trigrams(needle);
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(text));
+
+        lock.readLock().lock();
+        try {
+            List<DocumentList> candidates = new ArrayList<>(trigrams.size());
+            for (String trigram : trigrams) {
+                DocumentList list = titleTrigrams.get(trigram);
+                if (list == null) {
+                    return List.of();
+                }
+                candidates.add(list);
+            }
+            // Walk the rarest trigram, the others are only probed
+            candidates.sort(Comparator.comparingInt(list -> list.size));
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists.add(list);
+                }
+            }
+            int liveCount = documents.size();
+            double averageTitleLength = Math.max(1, (double) totalTitleLength / Math.max(1, liveCount));
+            double[] idf = new double[lists.size()];
+            for (int t = 0; t < lists.size(); t++) {
+                int documentFrequency = lists.get(t).size;
+                idf[t] = Math.max(MIN_IDF, Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5)));
+            }
+
+            int wanted = offset + limit;
+            PriorityQueue<long[]> best = new PriorityQueue<>(Math.min(wanted + 1, INITIAL_CAPACITY),
+                    InvertedIndex::compareWorstFirst);
+            int[] positions = new int[candidates.size()];
+            DocumentList lead = candidates.getFirst();
+            documents:
+            while (positions[0] < lead.size) {
+                int document = lead.documents[positions[0]];
+                for (int t = 1; t < candidates.size(); t++) {
+                    DocumentList list = candidates.get(t);
+                    positions[t] = list.seek(document, positions[t]);
+                    if (positions[t] >= list.size) {
+                        break documents;
+                    }
+                    if (list.documents[positions[t]] != document) {
+                        positions[0] = lead.seek(list.documents[positions[t]], positions[0] + 1);
+                        continue documents;
+                    }
+                }
+                positions[0]++;
+                // The trigrams may be spread over the title, it must still hold the whole text
+                if (deleted.get(document) || !titles[document].contains(needle)) {
+                    continue;
+                }
+                long[] hit = {Double.doubleToLongBits(titleScore(lists, idf, document, averageTitleLength)), document};
+                if (best.size() < wanted) {
+                    best.add(hit);
+                } else if (compareWorstFirst(hit, best.peek()) > 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                long[] hit = best.poll();
+                hits.add(new Hit(isbns[(int) hit[1]], Double.longBitsToDouble(hit[0])));
+            }
+            Collections.reverse(hits);
+            return offset >= hits.size() ? List.of() : List.copyOf(hits.subList(offset, hits.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed books.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of replaced or removed documents still taking room in the postings lists.
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // BM25F score of a document found in every list, zero when one of the terms is not in the searched fields
+    private double score(List<Postings> lists, int[] positions, double[] idf, int document, boolean inTitle,
+                         boolean inSummary, double averageTitleLength, double averageSummaryLength) {
+        double score = 0;
+        for (int t = 0; t < lists.size(); t++) {
+            // The lead position has already moved past the document
+            int frequencies = lists.get(t).frequencies[t == 0 ? positions[0] - 1 : positions[t]];
+            double frequency = 0;
+            if (inTitle) {
+                frequency += titleWeight * (frequencies >>> 16)
+                        / (1 - B + B * titleLengths[document] / averageTitleLength);
+            }
+            if (inSummary) {
+                frequency += (frequencies & 0xFFFF) / (1 - B + B * summaryLengths[document] / averageSummaryLength);
+            }
+            if (frequency == 0) {
+                return 0;
+            }
+            score += idf[t] * frequency * (K1 + 1) / (frequency + K1);
+        }
+        return score;
+    }
+
+    // BM25 title score of the terms found in the title of the document, zero when none is
+    private double titleScore(List<Postings> lists, double[] idf, int document, double averageTitleLength) {
+        double score = 0;
+        for (int t = 0; t < lists.size(); t++) {
+            Postings list = lists.get(t);
+            int index = Arrays.binarySearch(list.documents, 0, list.size, document);
+            if (index >= 0 && list.frequencies[index] >>> 16 > 0) {
+                double frequency = titleWeight * (list.frequencies[index] >>> 16)
+                        / (1 - B + B * titleLengths[document] / averageTitleLength);
+                score += idf[t] * frequency * (K1 + 1) / (frequency + K1);
+            }
+        }
+        return score;
+    }
+
+    private void removeDocument(String isbn) {
+        Integer previous = documents.remove(isbn);
+        if (previous != null) {
+            deleted.set(previous);
+            titles[previous] = null;
+            totalTitleLength -= titleLengths[previous];
+            totalSummaryLength -= summaryLengths[previous];
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > isbns.length) {
+            int newLength = Math.max(capacity, isbns.length * 2);
+            isbns = Arrays.copyOf(isbns, newLength);
+            titles = Arrays.copyOf(titles, newLength);
+            titleLengths = Arrays.copyOf(titleLengths, newLength);
+            summaryLengths = Arrays.copyOf(summaryLengths, newLength);
+        }
+    }
+
+    private static Set<String> trigrams(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + MIN_TITLE_SEARCH_LENGTH <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + MIN_TITLE_SEARCH_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static Integer addFrequencies(Integer left, Integer right) {
+        // Saturate each half instead of letting the summary frequency overflow into the title one
+        int title = Math.min(0xFFFF, (left >>> 16) + (right >>> 16));
+        int summary = Math.min(0xFFFF, (left & 0xFFFF) + (right & 0xFFFF));
+        return title << 16 | summary;
+    }
+
+    // Lower score first, and for equal scores the latest document first
+    private static int compareWorstFirst(long[] left, long[] right) {
+        int byScore = Double.compare(Double.longBitsToDouble(left[0]), Double.longBitsToDouble(right[0]));
+        return byScore != 0 ? byScore : Long.compare(right[1], left[1]);
+    }
+
+    // Documents in increasing order, as they are added
+    private static class DocumentList {
+        int[] documents = new int[4];
+        int size;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        // First position at or after from holding a document greater than or equal to the given one,
+        // galloping first since the probed documents only increase
+        int seek(int document, int from) {
+            int bound = 1;
+            int low = from;
+            while (low + bound < size && documents[low + bound] < document) {
+                low += bound;
+                bound <<= 1;
+            }
+            int high = Math.min(size, low + bound + 1);
+            int index = Arrays.binarySearch(documents, low, high, document);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    private static final class Postings extends DocumentList {
+        private int[] frequencies = new int[4];
+
+        private void add(int document, int frequency) {
+            if (size == frequencies.length) {
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            frequencies[size] = frequency;
+            add(document);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.librairie.catalogue.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text on anything but letters and digits, lower cases it and strips accents so that
+ * "Étranger" and "etranger" end up as the same term. Frequent French and English words are dropped,
+ * they would only make the postings lists longer.
+ */
+public final class Tokenizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on", "or",
+            "that", "the", "this", "to", "with",
+            "au", "aux", "ce", "ces", "d", "dans", "de", "des", "du", "en", "est", "et", "il", "l", "la", "le",
+            "les", "n", "ne", "par", "pas", "pour", "qu", "que", "qui", "s", "sa", "se", "son", "sur", "un",
+            "une");
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Terms of the text in order of appearance, duplicates included.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String normalized = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean termChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,28 +1,53 @@
 package com.librairie.catalogue.service;
 
+import com.librairie.catalogue.cache.AuthorIdCache;
+import com.librairie.catalogue.config.AuthorSuggestProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
 import com.librairie.catalogue.exception.ResourceNotFoundException;
 import com.librairie.catalogue.mapper.AuthorMapper;
 import com.librairie.catalogue.model.Author;
 import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.AuthorSuggestionDTO;
 import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.search.AuthorSuggestIndex;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
     private final AuthorMapper authorMapper;
+    private final AuthorIdCache authorIdCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuthorSuggestIndex authorSuggestIndex;
+    private final AuthorSuggestProperties suggestProperties;
 
-    public AuthorService(AuthorRepository authorRepository, AuthorMapper authorMapper) {
+    public AuthorService(AuthorRepository authorRepository, BookRepository bookRepository, AuthorMapper authorMapper,
+                         AuthorIdCache authorIdCache, ApplicationEventPublisher eventPublisher, AuthorSuggestIndex authorSuggestIndex,
+                         AuthorSuggestProperties suggestProperties) {
         this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
         this.authorMapper = authorMapper;
+        this.authorIdCache = authorIdCache;
+        this.eventPublisher = eventPublisher;
+        this.authorSuggestIndex = authorSuggestIndex;
+        this.suggestProperties = suggestProperties;
     }
 
     public List<AuthorDTO> getAllAuthors() {
-        List<Author> authors = authorRepository.findAll();
-        return authorMapper.authorsToAuthorDTOs(authors);
+        return authorRepository.findAllAsDTOs();
     }
 
     public AuthorDTO getAuthorById(Long id) {
@@ -31,27 +56,131 @@ public class AuthorService {
         return authorMapper.authorToAuthorDTO(author);
     }
 
+    /**
+     * Authors whose name starts with the prefix, accents and case ignored, the ones with the most books first.
+     */
+    public List<AuthorSuggestionDTO> suggestAuthors(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int topSize = suggestProperties.getTopSize();
+        int size = limit == null || limit <= 0 ? topSize : Math.min(limit, topSize);
+        if (authorSuggestIndex.isReady()) {
+            return authorSuggestIndex.suggest(prefix, size).stream()
+                    .map(suggestion -> AuthorSuggestionDTO.builder()
+                            .id(suggestion.id())
+                            .name(suggestion.name())
+                            .bookCount(suggestion.bookCount())
+                            .build())
+                    .toList();
+        }
+        return authorRepository.findSuggestions(prefix.strip(), Limit.of(size)).stream()
+                .map(suggestion -> AuthorSuggestionDTO.builder()
+                        .id(suggestion.getId())
+                        .name(suggestion.getName())
+                        .bookCount(suggestion.getBookCount())
+                        .build())
+                .toList();
+    }
+
     public AuthorDTO createAuthor(AuthorDTO authorDTO) {
         Author author = findOrCreateAuthor(authorDTO.getName());
         return authorMapper.authorToAuthorDTO(author);
     }
 
+    /**
+     * Returns a detached author holding only its id, name and version, enough to be linked to a book.
+     */
     Author findOrCreateAuthor(String name) {
+        AuthorIdCache.AuthorRef ref = authorIdCache.get(name, this::loadAuthor);
+        return Author.builder().id(ref.id()).name(ref.name()).version(ref.version()).build();
+    }
+
+    /**
+     * Authors of the given names, keyed by those names, case ignored like {@link #findOrCreateAuthor}: the
+     * spellings of a same author share one instance. The names not cached are looked up with a single query
+     * and the unknown ones inserted in a single batch.
+     */
+    Map<String, Author> findOrCreateAuthors(Collection<String> names) {
+        Map<Long, Author> authorsById = new HashMap<>();
+        Map<String, Author> authors = new HashMap<>(names.size());
+        authorIdCache.getAll(names, this::loadAuthors).forEach((name, ref) -> authors.put(name,
+                authorsById.computeIfAbsent(ref.id(), id -> Author.builder().id(id).name(ref.name()).version(ref.version()).build())));
+        return authors;
+    }
+
+    private Map<String, AuthorIdCache.AuthorRef> loadAuthors(List<String> names) {
+        Map<String, Author> existing = new HashMap<>();
+        authorRepository.findByLowerCaseNameIn(names.stream().map(AuthorService::lowerCase).toList())
+                .forEach(author -> existing.put(lowerCase(author.getName()), author));
+        Map<String, AuthorIdCache.AuthorRef> refs = new HashMap<>(names.size());
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            Author author = existing.get(lowerCase(name));
+            if (author == null) {
+                missing.add(name);
+            } else {
+                refs.put(name, toRef(author));
+            }
+        }
+        if (!missing.isEmpty()) {
+            refs.putAll(insertAuthors(missing));
+        }
+        return refs;
+    }
+
+    private AuthorIdCache.AuthorRef loadAuthor(String name) {
         return authorRepository.findByNameIgnoreCase(name)
-                .orElseGet(() -> authorRepository.save(new Author(name)));
+                .map(AuthorService::toRef)
+                .orElseGet(() -> insertAuthor(name));
     }
 
+    // Inserted in the caller's transaction, AuthorIdCache only shares it once that transaction commits. An author
+    // inserted meanwhile by another instance fails the transaction on the unique name, the request can be retried.
+    private AuthorIdCache.AuthorRef insertAuthor(String name) {
+        Author author = authorRepository.saveAndFlush(new Author(name));
+        eventPublisher.publishEvent(AuthorChangedEvent.created(author.getId(), author.getName()));
+        return toRef(author);
+    }
+
+    // In the caller's transaction, like insertAuthor
+    private Map<String, AuthorIdCache.AuthorRef> insertAuthors(List<String> names) {
+        List<Author> authors = authorRepository.saveAllAndFlush(names.stream().map(Author::new).toList());
+        Map<String, AuthorIdCache.AuthorRef> refs = new HashMap<>(authors.size());
+        for (Author author : authors) {
+            eventPublisher.publishEvent(AuthorChangedEvent.created(author.getId(), author.getName()));
+            refs.put(author.getName(), toRef(author));
+        }
+        return refs;
+    }
+
+    @Transactional
     public AuthorDTO updateAuthor(Long id, AuthorDTO authorDTO) {
         Author existingAuthor = authorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Unable to find author with id : " + id));
 
+        String previousName = existingAuthor.getName();
         existingAuthor.setName(authorDTO.getName());
 
         Author updatedAuthor = authorRepository.save(existingAuthor);
+        bookRepository.incrementVersionsByAuthorId(id);
+        eventPublisher.publishEvent(AuthorChangedEvent.updated(id, previousName, updatedAuthor.getName()));
         return authorMapper.authorToAuthorDTO(updatedAuthor);
     }
 
+    @Transactional
     public void deleteAuthor(Long id) {
-        authorRepository.deleteById(id);
+        authorRepository.findById(id).ifPresent(author -> {
+            authorRepository.delete(author);
+            eventPublisher.publishEvent(AuthorChangedEvent.deleted(id, author.getName()));
+        });
+    }
+
+    private static String lowerCase(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static AuthorIdCache.AuthorRef toRef(Author author) {
+        return new AuthorIdCache.AuthorRef(author.getId(), author.getName(), author.getVersion());
     }
 }
@@ -0,0 +1,195 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.BulkProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.model.Author;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BulkItemResultDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.PropertyDescriptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts or updates books by chunks, each chunk in its own transaction. Inside a chunk the books are
+ * loaded with a single query and written back through Hibernate JDBC batching.
+ * <p>
+ * Items are validated before the chunk is written, an invalid item fails alone. A chunk failing anyway, ex. on a
+ * book written meanwhile by another request, is written again item by item so that only the failing items are
+ * reported failed.
+ */
+@Service
+public class BookBulkService {
+    private static final Pattern ISBN_PATTERN = Pattern.compile(BookDTO.ISBN_REGEX);
+
+    private final BookRepository bookRepository;
+    private final AuthorService authorService;
+    private final BookMapper bookMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BulkProperties bulkProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final List<String> validatedProperties;
+
+    public BookBulkService(BookRepository bookRepository, AuthorService authorService, BookMapper bookMapper,
+                           EntityManager entityManager, TransactionTemplate transactionTemplate,
+                           BulkProperties bulkProperties, ApplicationEventPublisher eventPublisher,
+                           Validator validator) {
+        this.bookRepository = bookRepository;
+        this.authorService = authorService;
+        this.bookMapper = bookMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.bulkProperties = bulkProperties;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        // The ISBN is only checked against its format, an ISBN already known updates its book
+        this.validatedProperties = validator.getConstraintsForClass(BookDTO.class).getConstrainedProperties().stream()
+                .map(PropertyDescriptor::getPropertyName)
+                .filter(property -> !property.equals("isbn"))
+                .toList();
+    }
+
+    public List<BulkItemResultDTO> upsertBooks(List<BookDTO> books) {
+        List<BulkItemResultDTO> results = new ArrayList<>(books.size());
+        int chunkSize = Math.max(1, bulkProperties.getChunkSize());
+        for (int from = 0; from < books.size(); from += chunkSize) {
+            results.addAll(upsertChunk(books.subList(from, Math.min(from + chunkSize, books.size()))));
+        }
+        return results;
+    }
+
+    private List<BulkItemResultDTO> upsertChunk(List<BookDTO> chunk) {
+        BulkItemResultDTO[] results = new BulkItemResultDTO[chunk.size()];
+        // The last item of an ISBN wins, as it would across chunks
+        Map<String, Integer> lastItems = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BookDTO bookDTO = chunk.get(i);
+            String violations = validate(bookDTO);
+            if (violations != null) {
+                results[i] = failed(bookDTO == null ? null : bookDTO.getIsbn(), violations);
+                continue;
+            }
+            Integer superseded = lastItems.put(bookDTO.getIsbn(), i);
+            if (superseded != null) {
+                results[superseded] = failed(bookDTO.getIsbn(), "Superseded by a later item with the same ISBN");
+            }
+        }
+        List<Integer> validItems = lastItems.values().stream().sorted().toList();
+
+        if (!validItems.isEmpty()) {
+            try {
+                Map<Integer, BulkItemResultDTO.Status> statuses = transactionTemplate.execute(status ->
+                        writeChunk(chunk, validItems));
+                validItems.forEach(i -> results[i] = written(chunk.get(i), statuses.get(i)));
+            } catch (RuntimeException e) {
+                // The whole chunk has been rolled back, its items are written again one by one
+                validItems.forEach(i -> results[i] = upsertItem(chunk, i));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private BulkItemResultDTO upsertItem(List<BookDTO> chunk, int item) {
+        try {
+            Map<Integer, BulkItemResultDTO.Status> statuses = transactionTemplate.execute(status ->
+                    writeChunk(chunk, List.of(item)));
+            return written(chunk.get(item), statuses.get(item));
+        } catch (RuntimeException e) {
+            return failed(chunk.get(item).getIsbn(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    // Null when the item is valid, the messages of its violations otherwise
+    private String validate(BookDTO bookDTO) {
+        if (bookDTO == null || bookDTO.getIsbn() == null || !ISBN_PATTERN.matcher(bookDTO.getIsbn()).matches()) {
+            return "ISBN format should be ISBN-10 or ISBN-13 format";
+        }
+        List<String> messages = validatedProperties.stream()
+                .flatMap(property -> validator.validateProperty(bookDTO, property).stream())
+                .map(ConstraintViolation::getMessage)
+                .toList();
+        return messages.isEmpty() ? null : String.join(", ", messages);
+    }
+
+    private Map<Integer, BulkItemResultDTO.Status> writeChunk(List<BookDTO> chunk, List<Integer> items) {
+        Set<String> isbns = items.stream().map(i -> chunk.get(i).getIsbn()).collect(Collectors.toSet());
+        Map<String, Book> books = bookRepository.findByIsbnIn(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        // Authors are shared by many books of a feed, the names of a chunk are resolved all at once.
+        // Resolving them upfront keeps the author queries from flushing half written books.
+        Map<String, Author> authors = authorService.findOrCreateAuthors(items.stream()
+                .map(i -> chunk.get(i).getAuthors())
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toSet()));
+
+        Map<Integer, BulkItemResultDTO.Status> statuses = new HashMap<>();
+        Map<String, List<String>> previousAuthors = new HashMap<>();
+        for (Integer i : items) {
+            BookDTO bookDTO = chunk.get(i);
+            Book book = books.get(bookDTO.getIsbn());
+            if (book == null) {
+                book = bookMapper.bookDTOToBook(bookDTO);
+                books.put(book.getIsbn(), book);
+                entityManager.persist(book);
+                statuses.put(i, BulkItemResultDTO.Status.CREATED);
+            } else {
+                previousAuthors.putIfAbsent(book.getIsbn(), BookService.authorNames(book));
+                book.setTitle(bookDTO.getTitle());
+                book.setPageCount(bookDTO.getPageCount());
+                book.setSummary(bookDTO.getSummary());
+                book.setPublicationDate(bookDTO.getPublicationDate());
+                statuses.put(i, BulkItemResultDTO.Status.UPDATED);
+            }
+            book.setAuthors(resolveAuthors(bookDTO.getAuthors(), authors));
+        }
+
+        entityManager.flush();
+        statuses.forEach((i, status) -> {
+            BookDTO written = bookMapper.bookToBookDTO(books.get(chunk.get(i).getIsbn()));
+            eventPublisher.publishEvent(status == BulkItemResultDTO.Status.CREATED
+                    ? BookChangedEvent.created(written)
+                    : BookChangedEvent.updated(written, previousAuthors.get(written.getIsbn())));
+        });
+        entityManager.clear();
+        return statuses;
+    }
+
+    private static Set<Author> resolveAuthors(List<String> names, Map<String, Author> resolvedAuthors) {
+        if (names == null) {
+            return new HashSet<>();
+        }
+        return names.stream()
+                .map(resolvedAuthors::get)
+                .collect(Collectors.toSet());
+    }
+
+    private static BulkItemResultDTO written(BookDTO bookDTO, BulkItemResultDTO.Status status) {
+        return BulkItemResultDTO.builder()
+                .isbn(bookDTO.getIsbn())
+                .status(status)
+                .build();
+    }
+
+    private static BulkItemResultDTO failed(String isbn, String message) {
+        return BulkItemResultDTO.builder()
+                .isbn(isbn)
+                .status(BulkItemResultDTO.Status.FAILED)
+                .message(message)
+                .build();
+    }
+}
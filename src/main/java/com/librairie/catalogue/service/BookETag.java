@@ -0,0 +1,37 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+
+/**
+ * Strong entity tag of a book. The version changes on every write of the book, the id tells apart a book
+ * deleted then created again under the same ISBN. Clients must not rely on its format.
+ */
+public final class BookETag {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private BookETag() {
+    }
+
+    public static String of(long id, long version) {
+        return "\"" + Long.toString(id, Character.MAX_RADIX) + "-" + version + "\"";
+    }
+
+    public static String of(BookDTO book) {
+        return book.getId() == null || book.getVersion() == null ? null : of(book.getId(), book.getVersion());
+    }
+
+    /**
+     * Whether an If-Match header matches the book. If-Match uses the strong comparison, weak tags never match.
+     */
+    public static boolean matches(String ifMatch, long id, long version) {
+        String expected = of(id, version);
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.strip();
+            if (candidate.equals(ANY) || (!candidate.startsWith(WEAK_PREFIX) && candidate.equals(expected))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.librairie.catalogue.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalogue as newline delimited JSON. Books are read through a database cursor and
+ * evicted from the persistence context by chunks once written, so the heap use does not depend on the catalogue size.
+ * They bypass the second-level cache, a full export would otherwise replace the books being read there.
+ */
+@Service
+public class BookExportService {
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final EntityManager entityManager;
+    private final ObjectWriter bookWriter;
+
+    public BookExportService(BookRepository bookRepository, BookMapper bookMapper, EntityManager entityManager,
+                             ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookMapper = bookMapper;
+        this.entityManager = entityManager;
+        this.bookWriter = objectMapper.writerFor(BookDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+    }
+
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream outputStream) throws IOException {
+        long count = 0;
+        List<Book> chunk = new ArrayList<>(BookRepository.STREAM_FETCH_SIZE);
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        // The batch loaded authors would fill the second-level cache as much as the streamed books
+        session.setCacheMode(CacheMode.IGNORE);
+        try (Stream<Book> books = bookRepository.streamAll();
+             SequenceWriter sequenceWriter = bookWriter.writeValues(outputStream)) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == BookRepository.STREAM_FETCH_SIZE || !iterator.hasNext()) {
+                    count += writeChunk(chunk, sequenceWriter);
+                }
+            }
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+        if (count > 0) {
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+        return count;
+    }
+
+    // The books of a chunk are all managed when the first one is mapped, so their authors are batch loaded together
+    private int writeChunk(List<Book> chunk, SequenceWriter sequenceWriter) throws IOException {
+        for (Book book : chunk) {
+            sequenceWriter.write(bookMapper.bookToBookDTO(book));
+        }
+        sequenceWriter.flush();
+        int written = chunk.size();
+        chunk.clear();
+        entityManager.clear();
+        return written;
+    }
+}
@@ -0,0 +1,50 @@
+package com.librairie.catalogue.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.config.BookCacheProperties;
+import com.librairie.catalogue.model.dto.BookDTO;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a book the way the JSON message converter would, with the object mapper of the application.
+ */
+@Component
+public class BookJsonEncoder {
+
+    private final ObjectMapper objectMapper;
+    private final BookCacheProperties properties;
+
+    public BookJsonEncoder(ObjectMapper objectMapper, BookCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public BookCache.EncodedBook encode(BookDTO book) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(book);
+            int gzipMinLength = properties.getGzipMinLength();
+            byte[] gzip = gzipMinLength >= 0 && json.length >= gzipMinLength ? gzip(json) : null;
+            return new BookCache.EncodedBook(BookETag.of(book), json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to encode the book with ISBN: " + book.getIsbn(), e);
+        }
+    }
+
+    // Kept only when smaller, short bodies may grow with the gzip header
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.size() < json.length ? compressed.toByteArray() : null;
+    }
+}
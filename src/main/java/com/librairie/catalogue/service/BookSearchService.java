@@ -0,0 +1,174 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.BookSearchProperties;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.metrics.StatementCounter;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Search on several criteria at once. Each criterion is an independent id query, run on a bounded pool so
+ * that a search lasts as long as its slowest criterion rather than their sum. The ids are then intersected,
+ * or merged, in memory and only the books of the requested page are loaded, ordered by id.
+ * <p>
+ * The query of a criterion returns at most {@code sub-query-limit} ids: past the last id of a truncated one
+ * the result is unknown, so the page stops there and its cursor carries on from that id. Such a page may be
+ * short, or even empty, while a next cursor is still returned.
+ */
+@Service
+public class BookSearchService {
+    private static final LocalDate MIN_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final PaginationProperties paginationProperties;
+    private final BookSearchProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    public BookSearchService(BookRepository bookRepository, BookService bookService,
+                             PaginationProperties paginationProperties, BookSearchProperties properties,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.paginationProperties = paginationProperties;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // A full queue makes the request thread run the criterion itself instead of failing the search
+        this.executor = new ThreadPoolExecutor(properties.getParallelism(), properties.getParallelism(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("book-search-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public BookPageDTO search(BookSearchCriteria criteria, String cursor, Integer size) {
+        return search(criteria, cursor, size, null);
+    }
+
+    // Not transactional: the request thread must not hold a connection while the criteria wait for theirs
+    public BookPageDTO search(BookSearchCriteria criteria, String cursor, Integer size, Set<BookField> fields) {
+        int pageSize = paginationProperties.resolveSize(size);
+        long lastId = ContinuationToken.decode(cursor);
+        int limit = Math.max(properties.getSubQueryLimit(), pageSize + 1);
+        List<Function<Limit, List<Long>>> queries = queries(criteria, lastId);
+        if (queries.isEmpty()) {
+            return bookService.getAllBooks(cursor, size, fields);
+        }
+
+        List<Future<long[]>> futures = new ArrayList<>(queries.size());
+        long[] ids = null;
+        long bound = Long.MAX_VALUE;
+        try {
+            for (Function<Limit, List<Long>> query : queries) {
+                futures.add(executor.submit(StatementCounter.propagate(
+                        () -> readOnlyTransaction.execute(status -> toArray(query.apply(Limit.of(limit)))))));
+            }
+            for (Future<long[]> future : futures) {
+                long[] matches = join(future);
+                if (matches.length == limit) {
+                    bound = Math.min(bound, matches[matches.length - 1]);
+                }
+                if (ids == null) {
+                    ids = matches;
+                } else {
+                    ids = criteria.getMatch() == BookSearchCriteria.Match.ANY
+                            ? SortedIds.union(ids, matches) : SortedIds.intersect(ids, matches);
+                }
+            }
+        } finally {
+            // Left over by a failed criterion, the others are not worth waiting for
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        int known = SortedIds.countUpTo(ids, bound);
+        boolean full = known > pageSize;
+        long[] pageIds = Arrays.copyOf(ids, Math.min(known, pageSize));
+        String nextCursor = null;
+        if (full) {
+            nextCursor = ContinuationToken.encode(pageIds[pageIds.length - 1]);
+        } else if (bound != Long.MAX_VALUE) {
+            nextCursor = ContinuationToken.encode(bound);
+        }
+        List<BookDTO> books = pageIds.length == 0 ? List.of() : bookService.getBooksByIds(Arrays.stream(pageIds).boxed().toList(), fields);
+        return BookPageDTO.builder()
+                .books(books)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<Function<Limit, List<Long>>> queries(BookSearchCriteria criteria, long lastId) {
+        List<Function<Limit, List<Long>>> queries = new ArrayList<>(4);
+        String title = criteria.getTitle();
+        if (title != null && !title.isBlank()) {
+            queries.add(limit -> bookRepository.findIdsByTitleContaining(lastId, EscapeCharacter.DEFAULT.escape(title.strip()), limit));
+        }
+        String author = criteria.getAuthor();
+        if (author != null && !author.isBlank()) {
+            queries.add(limit -> bookRepository.findIdsByAuthorContaining(lastId, author.strip(), limit));
+        }
+        if (criteria.getPublishedFrom() != null || criteria.getPublishedTo() != null) {
+            LocalDate from = criteria.getPublishedFrom() == null ? MIN_DATE : criteria.getPublishedFrom();
+            LocalDate to = criteria.getPublishedTo() == null ? MAX_DATE : criteria.getPublishedTo();
+            if (from.isAfter(to)) {
+                throw new BadRequestException("publishedFrom " + from + " is after publishedTo " + to);
+            }
+            queries.add(limit -> bookRepository.findIdsByPublicationDateBetween(lastId, from, to, limit));
+        }
+        if (criteria.getMinPages() != null || criteria.getMaxPages() != null) {
+            int min = criteria.getMinPages() == null ? 0 : criteria.getMinPages();
+            int max = criteria.getMaxPages() == null ? Integer.MAX_VALUE : criteria.getMaxPages();
+            if (min > max) {
+                throw new BadRequestException("minPages " + min + " is greater than maxPages " + max);
+            }
+            queries.add(limit -> bookRepository.findIdsByPageCountBetween(lastId, min, max, limit));
+        }
+        return queries;
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    private static long[] join(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching books", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Book search failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
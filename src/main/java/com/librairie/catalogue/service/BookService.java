@@ -1,97 +1,352 @@
 package com.librairie.catalogue.service;
 
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.cache.IsbnFilter;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.exception.PreconditionFailedException;
 import com.librairie.catalogue.exception.ResourceNotFoundException;
 import com.librairie.catalogue.mapper.BookMapper;
 import com.librairie.catalogue.model.Author;
 import com.librairie.catalogue.model.Book;
 import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.repository.BookIdView;
 import com.librairie.catalogue.repository.BookRepository;
-import jakarta.transaction.Transactional;
+import com.librairie.catalogue.search.BookSearchIndex;
+import com.librairie.catalogue.search.InvertedIndex;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class BookService {
+    // Ranked results are scored as a whole, deep pages cost as much as all the pages before them
+    static final int MAX_RANKED_OFFSET = 10_000;
+
     private final BookRepository bookRepository;
     private final AuthorService authorService;
     private final BookMapper bookMapper;
+    private final PaginationProperties paginationProperties;
+    private final IsbnFilter isbnFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookCache bookCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BookSearchIndex bookSearchIndex;
+    // Bound once, a method reference would otherwise be allocated on every cache hit
+    private final Function<String, BookDTO> bookLoader = this::loadBook;
+    private final Function<BookDTO, BookCache.EncodedBook> bookEncoder;
 
-    public BookService(BookRepository bookRepository, AuthorService authorService, BookMapper bookMapper) {
+    public BookService(BookRepository bookRepository, AuthorService authorService, BookMapper bookMapper,
+                       PaginationProperties paginationProperties, IsbnFilter isbnFilter,
+                       ApplicationEventPublisher eventPublisher, BookCache bookCache,
+                       PlatformTransactionManager transactionManager, BookSearchIndex bookSearchIndex,
+                       BookJsonEncoder bookJsonEncoder) {
         this.bookRepository = bookRepository;
         this.authorService = authorService;
         this.bookMapper = bookMapper;
+        this.paginationProperties = paginationProperties;
+        this.isbnFilter = isbnFilter;
+        this.eventPublisher = eventPublisher;
+        this.bookCache = bookCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookEncoder = bookJsonEncoder::encode;
     }
 
     @Transactional(readOnly = true)
-    public List<BookDTO> getAllBooks() {
-        return bookMapper.booksToBookDTOs(bookRepository.findAll());
+    public BookPageDTO getAllBooks(String cursor, Integer size) {
+        return getAllBooks(cursor, size, null);
     }
 
+    /**
+     * Page of books holding only the given fields, or whole books when the fields are null.
+     */
     @Transactional(readOnly = true)
+    public BookPageDTO getAllBooks(String cursor, Integer size, Set<BookField> fields) {
+        int pageSize = paginationProperties.resolveSize(size);
+        long lastId = ContinuationToken.decode(cursor);
+        return toPage(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize + 1)), pageSize, fields);
+    }
+
+    // Not transactional itself: a cache hit must not even borrow a connection
     public BookDTO getBookByIsbn(String isbn) {
-        return bookMapper.bookToBookDTO(bookRepository.findByIsbn(isbn)
+        return bookCache.get(isbn, bookLoader);
+    }
+
+    /**
+     * The book encoded as a response body, cached alongside the book itself.
+     */
+    public BookCache.EncodedBook getEncodedBook(String isbn) {
+        return bookCache.getEncoded(isbn, bookLoader, bookEncoder);
+    }
+
+    /**
+     * The encoded book if cached, null otherwise.
+     */
+    public BookCache.EncodedBook findCachedEncodedBook(String isbn) {
+        return bookCache.getEncodedIfPresent(isbn);
+    }
+
+    /**
+     * ETag of the book, taken from the cache or else from its version alone: an unchanged book is neither
+     * loaded nor mapped.
+     */
+    public String getBookETag(String isbn) {
+        BookDTO cached = bookCache.getIfPresent(isbn);
+        if (cached != null) {
+            return BookETag.of(cached);
+        }
+        return bookRepository.findVersionByIsbn(isbn)
+                .map(book -> BookETag.of(book.getId(), book.getVersion()))
+                .orElseThrow(() -> new ResourceNotFoundException("Unable to find the book with ISBN: " + isbn));
+    }
+
+    private BookDTO loadBook(String isbn) {
+        return readOnlyTransaction.execute(status -> bookRepository.findDTOByIsbn(isbn)
                 .orElseThrow(() -> new ResourceNotFoundException("Unable to find the book with ISBN: " + isbn)));
     }
 
+    /**
+     * Search on a title or else an author, combined criteria go through {@link BookSearchService}.
+     */
     @Transactional(readOnly = true)
-    public List<BookDTO> searchBooks(String title, String author) {
+    public BookPageDTO searchBooks(String title, String author, String cursor, Integer size) {
+        return searchBooks(title, author, cursor, size, null);
+    }
+
+    @Transactional(readOnly = true)
+    public BookPageDTO searchBooks(String title, String author, String cursor, Integer size, Set<BookField> fields) {
+        int pageSize = paginationProperties.resolveSize(size);
         if (title != null && !title.isBlank()) {
-            return bookMapper.booksToBookDTOs(bookRepository.findByTitleContainingIgnoreCase(title));
+            // Both paths find the titles containing the text, the index only ranks them. Texts too short to hold a
+            // trigram stay in the database.
+            String text = title.strip();
+            if (bookSearchIndex.isReady() && text.length() >= InvertedIndex.MIN_TITLE_SEARCH_LENGTH) {
+                return toRankedPage((offset, count) -> bookSearchIndex.searchTitle(text, offset, count), cursor, pageSize, fields);
+            }
+        }
+        long lastId = ContinuationToken.decode(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        if (title != null && !title.isBlank()) {
+            String text = title.strip();
+            return toPage(bookRepository.findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(lastId, text, limit), pageSize, fields);
         }
         if (author != null && !author.isBlank()) {
-            return bookMapper.booksToBookDTOs(bookRepository.findByAuthorsNameContainingIgnoreCase(author));
+            return toPage(bookRepository.findDistinctIdsByIdGreaterThanAndAuthorsNameContainingIgnoreCaseOrderByIdAsc(lastId, author, limit), pageSize, fields);
+        }
+        return toPage(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(lastId, limit), pageSize, fields);
+    }
+
+    /**
+     * Books holding every term of the query in their title or summary, the most relevant first. The cursor
+     * of ranked pages is an offset in the results, so a page may shift if the catalogue changes meanwhile. A cursor
+     * issued by the database path, before the index was ready or by another instance, is rejected, and conversely.
+     */
+    @Transactional(readOnly = true)
+    public BookPageDTO searchBooksByText(String query, String cursor, Integer size) {
+        return searchBooksByText(query, cursor, size, null);
+    }
+
+    @Transactional(readOnly = true)
+    public BookPageDTO searchBooksByText(String query, String cursor, Integer size, Set<BookField> fields) {
+        int pageSize = paginationProperties.resolveSize(size);
+        if (bookSearchIndex.isReady()) {
+            return toRankedPage((offset, count) -> bookSearchIndex.search(query, EnumSet.allOf(InvertedIndex.Field.class), offset, count),
+                    cursor, pageSize, fields);
         }
-        return bookMapper.booksToBookDTOs(bookRepository.findAll());
+        long lastId = ContinuationToken.decode(cursor);
+        return toPage(bookRepository.findIdsByText(lastId, query.strip(), Limit.of(pageSize + 1)), pageSize, fields);
+    }
+
+    // The search is given the offset and the number of hits to return
+    private BookPageDTO toRankedPage(BiFunction<Integer, Integer, List<InvertedIndex.Hit>> search, String cursor, int pageSize,
+                                     Set<BookField> fields) {
+        long offset = ContinuationToken.decodeOffset(cursor);
+        if (offset > MAX_RANKED_OFFSET) {
+            throw new BadRequestException("Search results are limited to the first " + MAX_RANKED_OFFSET + " matches");
+        }
+        List<InvertedIndex.Hit> hits = search.apply((int) offset, pageSize + 1);
+        boolean hasNext = hits.size() > pageSize;
+        List<String> isbns = (hasNext ? hits.subList(0, pageSize) : hits).stream()
+                .map(InvertedIndex.Hit::isbn)
+                .toList();
+        List<BookDTO> books = isbns.isEmpty() ? List.of()
+                : inOrder(isbns, bookRepository.findFieldsByIsbnIn(isbns, fields == null ? BookField.ALL : fields), BookDTO::getIsbn);
+        return BookPageDTO.builder()
+                .books(books)
+                .nextCursor(hasNext ? ContinuationToken.encodeOffset(offset + pageSize) : null)
+                .build();
+    }
+
+    // Repositories are queried for one extra id, its presence tells whether a next page exists
+    private BookPageDTO toPage(List<BookIdView> ids, int pageSize, Set<BookField> fields) {
+        boolean hasNext = ids.size() > pageSize;
+        List<Long> pageIds = (hasNext ? ids.subList(0, pageSize) : ids).stream()
+                .map(BookIdView::getId)
+                .toList();
+        return BookPageDTO.builder()
+                .books(getBooksByIds(pageIds, fields))
+                .nextCursor(hasNext ? ContinuationToken.encode(pageIds.getLast()) : null)
+                .build();
+    }
+
+    /**
+     * Books of the given ids, in the same order, the ids of missing books being skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<BookDTO> getBooksByIds(List<Long> ids) {
+        return getBooksByIds(ids, null);
+    }
+
+    // One query for the whole page whatever its size, plus one for the authors. Only the columns of the given
+    // fields are read when there are some.
+    @Transactional(readOnly = true)
+    public List<BookDTO> getBooksByIds(List<Long> ids, Set<BookField> fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return inOrder(ids, bookRepository.findFieldsByIdIn(ids, fields == null ? BookField.ALL : fields), BookDTO::getId);
+    }
+
+    // Puts the books back in the order of the keys they were queried by
+    private static <K> List<BookDTO> inOrder(List<K> keys, List<BookDTO> books, Function<BookDTO, K> key) {
+        Map<K, BookDTO> booksByKey = books.stream().collect(Collectors.toMap(key, Function.identity()));
+        return keys.stream()
+                .map(booksByKey::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Transactional
     public BookDTO createBook(BookDTO bookDTO) {
         Book book = bookMapper.bookDTOToBook(bookDTO);
-        if (bookDTO.getAuthors() != null) {
-            Set<Author> authors = bookDTO.getAuthors().stream()
-                    .map(authorService::findOrCreateAuthor)
-                    .collect(Collectors.toSet());
+        if (bookDTO.getAuthors() != null && !bookDTO.getAuthors().isEmpty()) {
+            Set<Author> authors = new HashSet<>(authorService.findOrCreateAuthors(bookDTO.getAuthors()).values());
             book.setAuthors(authors);
         } else {
             book.setAuthors(Collections.emptySet());
         }
         Book createdBook = bookRepository.save(book);
-        return bookMapper.bookToBookDTO(createdBook);
+        BookDTO createdBookDTO = bookMapper.bookToBookDTO(createdBook);
+        eventPublisher.publishEvent(BookChangedEvent.created(createdBookDTO));
+        return createdBookDTO;
     }
 
     @Transactional
     public BookDTO updateBook(BookDTO bookDTO) {
-        Book existingBook = bookRepository.findByIsbn(bookDTO.getIsbn())
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + bookDTO.getIsbn()));
+        return updateBook(bookDTO, null);
+    }
+
+    /**
+     * Updates the book if it still matches the If-Match header, when given, and the version of the DTO, when
+     * set. A concurrent write committed after the book was read here makes the update fail as well.
+     */
+    @Transactional
+    public BookDTO updateBook(BookDTO bookDTO, String ifMatch) {
+        Book existingBook = findForUpdate(bookDTO.getIsbn(), bookDTO.getVersion(), ifMatch);
+        List<String> previousAuthors = authorNames(existingBook);
 
         existingBook.setTitle(bookDTO.getTitle());
         existingBook.setPageCount(bookDTO.getPageCount());
         existingBook.setSummary(bookDTO.getSummary());
         existingBook.setPublicationDate(bookDTO.getPublicationDate());
+        replaceAuthors(existingBook, bookDTO.getAuthors());
 
-        if (bookDTO.getAuthors() != null) {
-            Set<Author> authors = bookDTO.getAuthors().stream()
-                    .map(authorService::findOrCreateAuthor)
-                    .collect(Collectors.toSet());
-            existingBook.setAuthors(authors);
-        } else {
-            existingBook.setAuthors(Collections.emptySet());
+        return save(existingBook, previousAuthors);
+    }
+
+    /**
+     * Changes only the fields of the patch that are set, with the same checks as {@link #updateBook}. Only the
+     * changed columns are written, and only the author links added or removed.
+     */
+    @Transactional
+    public BookDTO patchBook(String isbn, BookPatchDTO patch, String ifMatch) {
+        Book existingBook = findForUpdate(isbn, patch.getVersion(), ifMatch);
+        List<String> previousAuthors = authorNames(existingBook);
+
+        if (patch.getTitle() != null) {
+            existingBook.setTitle(patch.getTitle());
+        }
+        if (patch.getPageCount() != null) {
+            existingBook.setPageCount(patch.getPageCount());
+        }
+        if (patch.getSummary() != null) {
+            existingBook.setSummary(patch.getSummary());
+        }
+        if (patch.getPublicationDate() != null) {
+            existingBook.setPublicationDate(patch.getPublicationDate());
+        }
+        if (patch.getAuthors() != null) {
+            replaceAuthors(existingBook, patch.getAuthors());
         }
 
-        Book updatedBook = bookRepository.save(existingBook);
-        return bookMapper.bookToBookDTO(updatedBook);
+        return save(existingBook, previousAuthors);
+    }
+
+    private Book findForUpdate(String isbn, Long version, String ifMatch) {
+        Book existingBook = bookRepository.findByIsbnForUpdate(isbn)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
+        if (ifMatch != null && !BookETag.matches(ifMatch, existingBook.getId(), existingBook.getVersion())) {
+            throw new PreconditionFailedException("Book with ISBN " + isbn + " does not match " + ifMatch);
+        }
+        if (version != null && !version.equals(existingBook.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, isbn);
+        }
+        return existingBook;
+    }
+
+    // The set is changed in place: replaced, Hibernate would delete and insert again all the links of the book
+    private void replaceAuthors(Book book, List<String> names) {
+        Set<Author> authors = names == null || names.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(authorService.findOrCreateAuthors(names).values());
+        Set<Long> ids = authors.stream().map(Author::getId).collect(Collectors.toSet());
+        Set<Long> existingIds = book.getAuthors().stream().map(Author::getId).collect(Collectors.toSet());
+        book.getAuthors().removeIf(author -> !ids.contains(author.getId()));
+        authors.stream()
+                .filter(author -> !existingIds.contains(author.getId()))
+                .forEach(book.getAuthors()::add);
+    }
+
+    private BookDTO save(Book book, List<String> previousAuthors) {
+        // Flushed here so that the returned version is the written one. The book is managed, merging it again
+        // would select each added author, resolved as a detached instance.
+        bookRepository.flush();
+        BookDTO updatedBookDTO = bookMapper.bookToBookDTO(book);
+        eventPublisher.publishEvent(BookChangedEvent.updated(updatedBookDTO, previousAuthors));
+        return updatedBookDTO;
     }
 
     @Transactional
     public void deleteBook(String isbn) {
-        if (!bookRepository.existsByIsbn(isbn)) {
-            throw new ResourceNotFoundException("Book not found with ISBN: " + isbn);
-        }
-        bookRepository.deleteByIsbn(isbn);
+        // The filter only holds the books known to this instance, its misses are confirmed by the database
+        Book book = bookRepository.findByIsbn(isbn).orElseThrow(() -> {
+            if (isbnFilter.mightContain(isbn)) {
+                isbnFilter.recordFalsePositive();
+            }
+            return new ResourceNotFoundException("Book not found with ISBN: " + isbn);
+        });
+        List<String> previousAuthors = authorNames(book);
+        bookRepository.delete(book);
+        eventPublisher.publishEvent(BookChangedEvent.deleted(isbn, previousAuthors));
+    }
+
+    static List<String> authorNames(Book book) {
+        return book.getAuthors().stream().map(Author::getName).toList();
     }
 
 }
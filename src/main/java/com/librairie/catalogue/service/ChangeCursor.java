@@ -0,0 +1,53 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.model.ChangeLogEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Opaque position in the change log, the time and id of the last entry read. Like {@link ContinuationToken}
+ * clients must not rely on its format.
+ */
+public record ChangeCursor(Instant recordedAt, long id) {
+    public static final ChangeCursor START = new ChangeCursor(Instant.EPOCH, 0L);
+
+    private static final String VERSION_PREFIX = "1:";
+
+    public static ChangeCursor of(ChangeLogEntry entry) {
+        return new ChangeCursor(entry.getRecordedAt(), entry.getId());
+    }
+
+    public String encode() {
+        String position = ChronoUnit.MICROS.between(Instant.EPOCH, recordedAt) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION_PREFIX + position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] position = decoded.startsWith(VERSION_PREFIX)
+                    ? decoded.substring(VERSION_PREFIX.length()).split(":") : new String[0];
+            if (position.length != 2) {
+                throw new BadRequestException("Invalid change cursor: " + cursor);
+            }
+            long micros = Long.parseLong(position[0]);
+            long id = Long.parseLong(position[1]);
+            if (micros < 0 || id < 0) {
+                throw new BadRequestException("Invalid change cursor: " + cursor);
+            }
+            return new ChangeCursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            // Base64 and number parsing errors, times out of range
+            throw new BadRequestException("Invalid change cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.ChangeFeedProperties;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.mapper.ChangeMapper;
+import com.librairie.catalogue.model.ChangeLogEntry;
+import com.librairie.catalogue.model.dto.ChangePageDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.repository.ChangeLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Append-only log of the book and author writes, read by the clients keeping a copy of the catalogue in sync:
+ * they only read the changes made since their last visit. Entries are recorded just before the transaction of
+ * the write commits, and are rolled back with it.
+ * <p>
+ * An entry becomes visible when its transaction commits, possibly after entries recorded later, by another
+ * transaction or another instance. Reads stop {@code settle-time} before now so that no entry can show up
+ * behind a cursor once it has been served: the clocks of the instances must not drift apart more than that.
+ */
+@Service
+public class ChangeFeedService {
+    private final ChangeLogRepository changeLogRepository;
+    private final BookRepository bookRepository;
+    private final ChangeMapper changeMapper;
+    private final PaginationProperties paginationProperties;
+    private final ChangeFeedProperties properties;
+    // One virtual thread per stream, blocked on the client most of the time
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ChangeFeedService(ChangeLogRepository changeLogRepository, BookRepository bookRepository,
+                             ChangeMapper changeMapper, PaginationProperties paginationProperties,
+                             ChangeFeedProperties properties) {
+        this.changeLogRepository = changeLogRepository;
+        this.bookRepository = bookRepository;
+        this.changeMapper = changeMapper;
+        this.paginationProperties = paginationProperties;
+        this.properties = properties;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookChanged(BookChangedEvent event) {
+        record(ChangeLogEntry.Resource.BOOK, ChangeLogEntry.ChangeType.valueOf(event.type().name()), event.isbn());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        record(ChangeLogEntry.Resource.AUTHOR, ChangeLogEntry.ChangeType.valueOf(event.type().name()), event.id().toString());
+        if (event.type() == AuthorChangedEvent.ChangeType.UPDATED) {
+            // The books of a renamed author changed too, their clients must not have to know who wrote them
+            bookRepository.findIsbnsByAuthorId(event.id()).forEach(isbn ->
+                    record(ChangeLogEntry.Resource.BOOK, ChangeLogEntry.ChangeType.UPDATED, isbn));
+        }
+    }
+
+    // Flushed with the rest of the transaction, entries of a bulk import are inserted in batches
+    private void record(ChangeLogEntry.Resource resource, ChangeLogEntry.ChangeType type, String resourceId) {
+        changeLogRepository.save(ChangeLogEntry.builder()
+                .recordedAt(Instant.now().truncatedTo(ChronoUnit.MICROS))
+                .resource(resource)
+                .type(type)
+                .resourceId(resourceId)
+                .build());
+    }
+
+    public ChangePageDTO getChanges(String since, Integer size) {
+        ChangeCursor cursor = ChangeCursor.decode(since);
+        List<ChangeLogEntry> entries = read(cursor, paginationProperties.resolveSize(size));
+        return ChangePageDTO.builder()
+                .changes(changeMapper.entriesToChangeDTOs(entries))
+                .nextCursor((entries.isEmpty() ? cursor : ChangeCursor.of(entries.getLast())).encode())
+                .build();
+    }
+
+    /**
+     * Cursor of the last change served so far: taken before a full download of the catalogue, it gives the
+     * changes to apply to the downloaded copy without reading the log from its start.
+     */
+    public String getCurrentCursor() {
+        return changeLogRepository.findFirstByRecordedAtLessThanOrderByRecordedAtDescIdDesc(settledUntil())
+                .map(ChangeCursor::of)
+                .orElse(ChangeCursor.START)
+                .encode();
+    }
+
+    /**
+     * Sends the changes recorded after the cursor, then the new ones as they settle. Events are written to the
+     * client one at a time: a slow client blocks the send, and the next batch is not read before it caught up.
+     */
+    public SseEmitter stream(String since) {
+        ChangeCursor cursor = ChangeCursor.decode(since);
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Future<?> tail = executor.submit(() -> tail(emitter, cursor));
+        // Completion, timeout and client errors all end up here
+        emitter.onCompletion(() -> tail.cancel(true));
+        return emitter;
+    }
+
+    void tail(SseEmitter emitter, ChangeCursor since) {
+        ChangeCursor cursor = since;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<ChangeLogEntry> entries = read(cursor, properties.getStreamBatchSize());
+                for (ChangeLogEntry entry : entries) {
+                    cursor = ChangeCursor.of(entry);
+                    emitter.send(SseEmitter.event()
+                            .id(cursor.encode())
+                            .name(entry.getType().name())
+                            .data(changeMapper.entryToChangeDTO(entry), MediaType.APPLICATION_JSON));
+                }
+                if (entries.size() < properties.getStreamBatchSize()) {
+                    Thread.sleep(properties.getPollInterval());
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stream completed or application shutting down
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            // Client gone, the container completes the emitter, or emitter already completed
+            return;
+        }
+        emitter.complete();
+    }
+
+    private List<ChangeLogEntry> read(ChangeCursor cursor, int size) {
+        return changeLogRepository.findAfter(cursor.recordedAt(), cursor.id(), settledUntil(), Limit.of(size));
+    }
+
+    private Instant settledUntil() {
+        return Instant.now().minus(properties.getSettleTime());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,60 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor handed to clients between two pages. It only wraps the position of the last
+ * returned element, or the offset of the next one for ranked results, clients must not rely on its format.
+ */
+public final class ContinuationToken {
+    private static final String VERSION_PREFIX = "1:";
+    // Ranked pages are walked by offset in the results, a cursor of one kind must not be read as the other
+    private static final String OFFSET_PREFIX = "o1:";
+
+    private ContinuationToken() {
+    }
+
+    public static String encode(long position) {
+        return encode(VERSION_PREFIX, position);
+    }
+
+    public static long decode(String token) {
+        return decode(VERSION_PREFIX, token);
+    }
+
+    public static String encodeOffset(long offset) {
+        return encode(OFFSET_PREFIX, offset);
+    }
+
+    public static long decodeOffset(String token) {
+        return decode(OFFSET_PREFIX, token);
+    }
+
+    private static String encode(String prefix, long position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((prefix + position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decode(String prefix, String token) {
+        if (token == null || token.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(prefix)) {
+                throw new BadRequestException("Invalid continuation token: " + token);
+            }
+            long position = Long.parseLong(decoded.substring(prefix.length()));
+            if (position < 0) {
+                throw new BadRequestException("Invalid continuation token: " + token);
+            }
+            return position;
+        } catch (IllegalArgumentException e) {
+            // Base64 and number parsing errors
+            throw new BadRequestException("Invalid continuation token: " + token);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.librairie.catalogue.service;
+
+import java.util.Arrays;
+
+/**
+ * Set operations on ascending arrays of distinct ids, as returned by the id queries ordered by id.
+ */
+public final class SortedIds {
+    // Past this size ratio, looking the ids of the small array up in the large one beats walking both
+    private static final int GALLOP_RATIO = 32;
+
+    private SortedIds() {
+    }
+
+    public static long[] intersect(long[] first, long[] second) {
+        long[] small = first.length <= second.length ? first : second;
+        long[] large = small == first ? second : first;
+        long[] result = new long[small.length];
+        int count = 0;
+        if ((long) small.length * GALLOP_RATIO < large.length) {
+            int from = 0;
+            for (long id : small) {
+                int index = Arrays.binarySearch(large, from, large.length, id);
+                if (index >= 0) {
+                    result[count++] = id;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+                if (from == large.length) {
+                    break;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    result[count++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    public static long[] union(long[] first, long[] second) {
+        long[] result = new long[first.length + second.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                result[count++] = first[i++];
+            } else if (first[i] > second[j]) {
+                result[count++] = second[j++];
+            } else {
+                result[count++] = first[i++];
+                j++;
+            }
+        }
+        while (i < first.length) {
+            result[count++] = first[i++];
+        }
+        while (j < second.length) {
+            result[count++] = second[j++];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Number of ids lower than or equal to the bound.
+     */
+    public static int countUpTo(long[] ids, long bound) {
+        int index = Arrays.binarySearch(ids, bound);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -1,15 +1,18 @@
 package com.librairie.catalogue.validation;
 
 
+import com.librairie.catalogue.cache.IsbnFilter;
 import com.librairie.catalogue.repository.BookRepository;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 public class UniqueISBNValidator implements ConstraintValidator<UniqueISBN, String> {
     private final BookRepository bookRepository;
+    private final IsbnFilter isbnFilter;
 
-    public UniqueISBNValidator(BookRepository repository) {
+    public UniqueISBNValidator(BookRepository repository, IsbnFilter isbnFilter) {
         this.bookRepository = repository;
+        this.isbnFilter = isbnFilter;
     }
 
     @Override
@@ -17,6 +20,14 @@ public class UniqueISBNValidator implements ConstraintValidator<UniqueISBN, Stri
         if (isbn == null || isbn.isBlank()) {
             return false;
         }
-        return !bookRepository.existsByIsbn(isbn);
+        // A definite miss of the filter spares the database query
+        if (!isbnFilter.mightContain(isbn)) {
+            return true;
+        }
+        boolean exists = bookRepository.existsByIsbn(isbn);
+        if (!exists) {
+            isbnFilter.recordFalsePositive();
+        }
+        return !exists;
     }
 }
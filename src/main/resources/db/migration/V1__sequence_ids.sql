@@ -0,0 +1,18 @@
+-- Book and author ids used to be identity columns, they are now drawn from pooled sequences so that
+-- Hibernate can batch inserts. On an existing database the sequences must start after the current ids.
+CREATE SEQUENCE IF NOT EXISTS book_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS author_seq START WITH 1 INCREMENT BY 50;
+
+DO $$
+BEGIN
+    -- A fresh database has no table yet, Hibernate creates them after this migration
+    IF to_regclass('book') IS NOT NULL THEN
+        ALTER TABLE book ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        -- The pooled optimizer uses the returned value as the upper bound of a block of 50 ids
+        PERFORM setval('book_seq', (SELECT coalesce(max(id), 0) FROM book) + 50, false);
+    END IF;
+    IF to_regclass('author') IS NOT NULL THEN
+        ALTER TABLE author ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        PERFORM setval('author_seq', (SELECT coalesce(max(id), 0) FROM author) + 50, false);
+    END IF;
+END $$;
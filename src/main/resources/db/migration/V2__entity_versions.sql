@@ -0,0 +1,12 @@
+-- Books and authors are now versioned for optimistic locking and ETags. Hibernate would add the columns
+-- as nullable, existing rows need a version to be updated through JPA.
+DO $$
+BEGIN
+    -- A fresh database has no table yet, Hibernate creates them after this migration
+    IF to_regclass('book') IS NOT NULL THEN
+        ALTER TABLE book ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+    END IF;
+    IF to_regclass('author') IS NOT NULL THEN
+        ALTER TABLE author ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+    END IF;
+END $$;
@@ -0,0 +1,49 @@
+package com.librairie.catalogue.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BloomFilterTest {
+
+    @Test
+    void shouldContainEveryInsertedValue() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(isbn(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(isbn(i))).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateCloseToTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(isbn(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(isbn(i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    void shouldRejectInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1));
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+}
@@ -0,0 +1,172 @@
+package com.librairie.catalogue.cache;
+
+import com.librairie.catalogue.config.BookCacheProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.exception.ResourceNotFoundException;
+import com.librairie.catalogue.model.dto.BookDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookCacheTest {
+
+    private BookCacheProperties properties;
+
+    private BookCache bookCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        properties = new BookCacheProperties();
+        bookCache = new BookCache(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void shouldLoadBookOnce() {
+        bookCache.get("1234567890", this::load);
+        BookDTO book = bookCache.get("1234567890", this::load);
+
+        assertThat(book.getIsbn()).isEqualTo("1234567890");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldNotShareCachedInstance() {
+        BookDTO first = bookCache.get("1234567890", this::load);
+        first.setTitle("Changed by a caller");
+
+        assertThat(bookCache.get("1234567890", this::load).getTitle()).isEqualTo("Title");
+    }
+
+    @Test
+    void shouldReloadBookOnceChanged() {
+        bookCache.get("1234567890", this::load);
+
+        bookCache.onBookChanged(BookChangedEvent.deleted("1234567890", List.of()));
+        bookCache.get("1234567890", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldReloadEveryBookWhenAuthorIsRenamed() {
+        bookCache.get("1234567890", this::load);
+        bookCache.get("0987654321", this::load);
+
+        bookCache.onAuthorChanged(AuthorChangedEvent.created(1L, "New author"));
+        bookCache.get("1234567890", this::load);
+        bookCache.onAuthorChanged(AuthorChangedEvent.updated(1L, "Author", "Renamed author"));
+        bookCache.get("1234567890", this::load);
+        bookCache.get("0987654321", this::load);
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void shouldDropEncodedBookWithItsBook() {
+        AtomicInteger encodings = new AtomicInteger();
+        Function<BookDTO, BookCache.EncodedBook> encoder = book -> {
+            encodings.incrementAndGet();
+            return new BookCache.EncodedBook(null, book.getTitle().getBytes(StandardCharsets.UTF_8), null);
+        };
+        BookCache.EncodedBook encoded = bookCache.getEncoded("1234567890", this::load, encoder);
+        assertThat(bookCache.getEncoded("1234567890", this::load, encoder)).isSameAs(encoded);
+        assertThat(bookCache.getEncodedIfPresent("1234567890")).isSameAs(encoded);
+
+        bookCache.onBookChanged(BookChangedEvent.deleted("1234567890", List.of()));
+
+        assertThat(bookCache.getEncodedIfPresent("1234567890")).isNull();
+        bookCache.getEncoded("1234567890", this::load, encoder);
+        assertThat(loads).hasValue(2);
+        assertThat(encodings).hasValue(2);
+    }
+
+    @Test
+    void shouldNotKeepFailedLoads() {
+        assertThatThrownBy(() -> bookCache.get("1234567890", isbn -> {
+            throw new ResourceNotFoundException("Unable to find the book with ISBN: " + isbn);
+        })).isInstanceOf(ResourceNotFoundException.class);
+
+        bookCache.get("1234567890", this::load);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldBypassCacheWhenDisabled() {
+        properties.setEnabled(false);
+
+        bookCache.get("1234567890", this::load);
+        bookCache.get("1234567890", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldDiscardLoadInFlightWhenInvalidated() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        CompletableFuture<BookDTO> staleRead = CompletableFuture.supplyAsync(() -> bookCache.get("1234567890", isbn -> {
+            loading.countDown();
+            BookDTO book = load(isbn);
+            try {
+                committed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return book;
+        }));
+        loading.await();
+
+        // The writer commits while the old value is being loaded, then invalidates
+        CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() -> bookCache.invalidate("1234567890"));
+        committed.countDown();
+        staleRead.get();
+        invalidation.get();
+
+        bookCache.get("1234567890", this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldNotHoldCacheLocksWhileLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<BookDTO> slowRead = CompletableFuture.supplyAsync(() -> bookCache.get("1234567890", isbn -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load(isbn);
+        }));
+        loading.await();
+
+        // Neither the invalidation nor a load of another book waits for the slow load
+        bookCache.invalidate("1234567890");
+        assertThat(bookCache.get("0987654321", this::load).getIsbn()).isEqualTo("0987654321");
+        release.countDown();
+        slowRead.get();
+
+        bookCache.get("1234567890", this::load);
+        assertThat(loads).hasValue(3);
+    }
+
+    private BookDTO load(String isbn) {
+        loads.incrementAndGet();
+        return BookDTO.builder().isbn(isbn).title("Title").authors(new ArrayList<>(List.of("Author"))).build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.librairie.catalogue.cache;
+
+import com.librairie.catalogue.config.ChangeFeedProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.ChangeLogPosition;
+import com.librairie.catalogue.repository.ChangeLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogueVersionTest {
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    private final ChangeFeedProperties properties = new ChangeFeedProperties();
+
+    private CatalogueVersion catalogueVersion;
+
+    @BeforeEach
+    void setUp() {
+        catalogueVersion = new CatalogueVersion(changeLogRepository, properties);
+    }
+
+    @Test
+    void shouldChangeOnWriteOfAnotherInstance() {
+        // Arrange
+        properties.setPollInterval(Duration.ZERO);
+        Instant settled = Instant.parse("2025-01-01T00:00:00Z");
+        when(changeLogRepository.findPosition(any())).thenReturn(position(settled, 0), position(settled, 1), position(settled, 1));
+
+        // Act
+        String before = catalogueVersion.eTag();
+        String after = catalogueVersion.eTag();
+
+        // Assert
+        assertThat(after).isNotEqualTo(before).startsWith("W/\"");
+        assertThat(catalogueVersion.eTag()).isEqualTo(after);
+    }
+
+    @Test
+    void shouldReadAgainAfterWriteOfThisInstanceOnly() {
+        // Arrange
+        when(changeLogRepository.findPosition(any())).thenReturn(position(null, 0), position(null, 1));
+
+        // Act
+        String before = catalogueVersion.eTag();
+        String cached = catalogueVersion.eTag();
+        catalogueVersion.onBookChanged(BookChangedEvent.created(BookDTO.builder().isbn("1234567890").build()));
+        String after = catalogueVersion.eTag();
+
+        // Assert
+        assertThat(cached).isEqualTo(before);
+        assertThat(after).isNotEqualTo(before);
+        verify(changeLogRepository, times(2)).findPosition(any());
+    }
+
+    private static ChangeLogPosition position(Instant lastSettled, long recentCount) {
+        return new ChangeLogPosition() {
+            @Override
+            public Instant getLastSettled() {
+                return lastSettled;
+            }
+
+            @Override
+            public long getRecentCount() {
+                return recentCount;
+            }
+        };
+    }
+}
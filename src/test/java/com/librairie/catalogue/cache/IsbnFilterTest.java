@@ -0,0 +1,129 @@
+package com.librairie.catalogue.cache;
+
+import com.librairie.catalogue.config.IsbnFilterProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IsbnFilterTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private IsbnFilterProperties properties;
+
+    private IsbnFilter isbnFilter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IsbnFilterProperties();
+        properties.setMinCapacity(1_000);
+        isbnFilter = new IsbnFilter(bookRepository, properties, transactionManager, meterRegistry);
+    }
+
+    @Test
+    void shouldReportEveryIsbnUntilBuilt() {
+        assertThat(isbnFilter.mightContain("1234567890")).isTrue();
+    }
+
+    @Test
+    void shouldRuleOutUnknownIsbnOnceBuilt() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(1L);
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.of("1234567890"));
+
+        // Act
+        isbnFilter.rebuild();
+
+        // Assert
+        assertThat(isbnFilter.mightContain("1234567890")).isTrue();
+        assertThat(isbnFilter.mightContain("0987654321")).isFalse();
+        assertThat(meterRegistry.get("catalogue.isbn.filter.lookups").tag("result", "absent").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldAddCreatedIsbns() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+        isbnFilter.rebuild();
+
+        // Act
+        isbnFilter.onBookChanged(BookChangedEvent.created(BookDTO.builder().isbn("1234567890").build()));
+
+        // Assert
+        assertThat(isbnFilter.mightContain("1234567890")).isTrue();
+    }
+
+    @Test
+    void shouldKeepIsbnOfTransactionCommittedAfterRebuild() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty(), Stream.empty());
+        isbnFilter.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            isbnFilter.onBookChanged(BookChangedEvent.created(BookDTO.builder().isbn("1234567890").build()));
+
+            // Act: the create transaction is still open, the rebuild cannot read its ISBN
+            isbnFilter.rebuild();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertThat(isbnFilter.mightContain("1234567890")).isTrue();
+    }
+
+    @Test
+    void shouldAnswerEveryIsbnWhenDisabled() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+        isbnFilter.rebuild();
+
+        // Act
+        properties.setEnabled(false);
+
+        // Assert
+        assertThat(isbnFilter.mightContain("1234567890")).isTrue();
+    }
+
+    @Test
+    void shouldTrackObservedFalsePositiveRate() {
+        // Arrange
+        when(bookRepository.count()).thenReturn(0L);
+        when(bookRepository.streamAllIsbns()).thenReturn(Stream.empty());
+        isbnFilter.rebuild();
+        isbnFilter.mightContain("0987654321");
+
+        // Act
+        isbnFilter.recordFalsePositive();
+
+        // Assert
+        assertThat(isbnFilter.observedFalsePositiveRate()).isEqualTo(0.5);
+    }
+}
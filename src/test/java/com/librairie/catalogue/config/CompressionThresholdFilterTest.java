@@ -0,0 +1,60 @@
+package com.librairie.catalogue.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionThresholdFilterTest {
+    private final ServerProperties serverProperties = new ServerProperties();
+
+    private CompressionThresholdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        serverProperties.getCompression().setEnabled(true);
+        serverProperties.getCompression().setMinResponseSize(DataSize.ofBytes(10));
+        filter = new CompressionThresholdFilter(serverProperties);
+    }
+
+    @Test
+    void shouldSendLengthOfBodyUnderThreshold() throws Exception {
+        MockHttpServletResponse response = write(MediaType.APPLICATION_JSON_VALUE, "[1,2,3]");
+
+        assertThat(response.getContentLength()).isEqualTo(7);
+        assertThat(response.getContentAsString()).isEqualTo("[1,2,3]");
+    }
+
+    @Test
+    void shouldStreamBodyOverThreshold() throws Exception {
+        MockHttpServletResponse response = write(MediaType.APPLICATION_JSON_VALUE, "[1,2,3,4,5,6,7]");
+
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("[1,2,3,4,5,6,7]");
+    }
+
+    @Test
+    void shouldNotHoldBackUncompressedTypes() throws Exception {
+        MockHttpServletResponse response = write(MediaType.TEXT_EVENT_STREAM_VALUE, "data:1");
+
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("data:1");
+    }
+
+    private MockHttpServletResponse write(String contentType, String body) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books"), response, (req, res) -> {
+            res.setContentType(contentType);
+            res.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            res.getOutputStream().flush();
+        });
+        return response;
+    }
+}
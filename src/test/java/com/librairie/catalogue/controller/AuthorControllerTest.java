@@ -3,6 +3,7 @@ package com.librairie.catalogue.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.librairie.catalogue.exception.ResourceNotFoundException;
 import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.AuthorSuggestionDTO;
 import com.librairie.catalogue.service.AuthorService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +66,16 @@ class AuthorControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void shouldSuggestAuthors() throws Exception {
+        when(authorService.suggestAuthors("vic", 5)).thenReturn(List.of(new AuthorSuggestionDTO(1L, "Victor Hugo", 12)));
+
+        mockMvc.perform(get("/api/authors/suggest").param("prefix", "vic").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Victor Hugo"))
+                .andExpect(jsonPath("$[0].bookCount").value(12));
+    }
+
     @Test
     void shouldReturnAuthorById() throws Exception {
         when(authorService.getAuthorById(1L)).thenReturn(author);
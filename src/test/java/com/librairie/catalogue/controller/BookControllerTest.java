@@ -1,8 +1,20 @@
 package com.librairie.catalogue.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.exception.PreconditionFailedException;
+import com.librairie.catalogue.model.Book;
 import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.model.dto.BulkItemResultDTO;
 import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.service.BookBulkService;
+import com.librairie.catalogue.service.BookETag;
+import com.librairie.catalogue.service.BookExportService;
+import com.librairie.catalogue.service.BookJsonEncoder;
+import com.librairie.catalogue.service.BookSearchService;
 import com.librairie.catalogue.service.BookService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,18 +25,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -41,15 +62,27 @@ class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookExportService bookExportService;
+
+    @MockBean
+    private BookBulkService bookBulkService;
+
+    @MockBean
+    private BookSearchService bookSearchService;
+
     @InjectMocks
     private BookController bookController;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BookJsonEncoder bookJsonEncoder;
+
     @BeforeEach
     void setup() {
-        Mockito.reset(bookService, bookRepository);
+        Mockito.reset(bookService, bookExportService, bookBulkService, bookRepository);
     }
 
     @Test
@@ -64,13 +97,34 @@ class BookControllerTest {
                 .pageCount(96)
                 .build();
 
-        when(bookService.getAllBooks()).thenReturn(List.of(book));
+        when(bookService.getAllBooks(null, null, null)).thenReturn(BookPageDTO.builder().books(List.of(book)).build());
 
         // Act & Assert
         mockMvc.perform(get("/api/books"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()").value(1))
-                .andExpect(jsonPath("$[0].title").value("Le Petit Prince"));
+                .andExpect(jsonPath("$[0].title").value("Le Petit Prince"))
+                .andExpect(header().doesNotExist(BookController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void shouldAdvertiseNextPageCursor() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder()
+                .isbn("1234567890123")
+                .title("Le Petit Prince")
+                .build();
+
+        when(bookService.getAllBooks("cursor", 1, null))
+                .thenReturn(BookPageDTO.builder().books(List.of(book)).nextCursor("next").build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books")
+                        .param("cursor", "cursor")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "next"));
     }
 
 
@@ -106,15 +160,120 @@ class BookControllerTest {
                 .pageCount(96)
                 .build();
 
-        when(bookService.getBookByIsbn("1234567890123")).thenReturn(book);
+        when(bookService.getEncodedBook("1234567890123")).thenReturn(bookJsonEncoder.encode(book));
 
         // Act & Assert
         mockMvc.perform(get("/api/books/{isbn}", "1234567890123"))
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.title").value("Le Petit Prince"))
+                .andExpect(jsonPath("$.publicationDate").value("1943-04-06"))
                 .andExpect(jsonPath("$.authors[0]").value("Antoine de Saint-Exupéry"));
     }
 
+    @Test
+    void shouldTagBookWithItsVersion() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder()
+                .id(7L)
+                .version(3L)
+                .isbn("1234567890123")
+                .title("Le Petit Prince")
+                .build();
+        when(bookService.getBookETag("1234567890123")).thenReturn(BookETag.of(7L, 3L));
+        when(bookService.getEncodedBook("1234567890123")).thenReturn(bookJsonEncoder.encode(book));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/{isbn}", "1234567890123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, BookETag.of(7L, 3L)))
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(jsonPath("$.id").doesNotExist());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutLoadingBook() throws Exception {
+        // Arrange
+        when(bookService.getBookETag("1234567890123")).thenReturn(BookETag.of(7L, 3L));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/{isbn}", "1234567890123")
+                        .header(HttpHeaders.IF_NONE_MATCH, BookETag.of(7L, 3L)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(bookService, never()).getEncodedBook(any());
+    }
+
+    @Test
+    void shouldWriteCachedGzipEncodingWhenAccepted() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder()
+                .id(7L)
+                .version(3L)
+                .isbn("1234567890123")
+                .title("Le Petit Prince")
+                .summary("Un aviateur rencontre un petit prince. ".repeat(30))
+                .build();
+        BookCache.EncodedBook encoded = bookJsonEncoder.encode(book);
+        when(bookService.findCachedEncodedBook("1234567890123")).thenReturn(encoded);
+
+        // Act & Assert
+        byte[] body = mockMvc.perform(get("/api/books/{isbn}", "1234567890123")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, encoded.gzip().length))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream json = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(objectMapper.readValue(json, BookDTO.class).getTitle()).isEqualTo("Le Petit Prince");
+        }
+        verify(bookService, never()).getBookETag(any());
+        verify(bookService, never()).getEncodedBook(any());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForUnchangedCatalogue() throws Exception {
+        // Arrange
+        when(bookService.getAllBooks(null, null, null)).thenReturn(BookPageDTO.builder().books(List.of()).build());
+        String eTag = mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        verify(bookService, times(1)).getAllBooks(null, null, null);
+    }
+
+    @Test
+    void shouldRejectUpdateOfModifiedBook() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder().isbn("1234567890123").title("Livre Modifié").build();
+        when(bookService.updateBook(any(BookDTO.class), eq("\"stale\"")))
+                .thenThrow(new PreconditionFailedException("Book with ISBN 1234567890123 does not match \"stale\""));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/books")
+                        .header(HttpHeaders.IF_MATCH, "\"stale\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldReportConcurrentUpdateAsConflict() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder().isbn("1234567890123").title("Livre Modifié").version(1L).build();
+        when(bookService.updateBook(any(BookDTO.class), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, "1234567890123"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void shouldSearchBooksByTitle() throws Exception {
         // Arrange
@@ -127,7 +286,8 @@ class BookControllerTest {
                 .pageCount(250)
                 .build();
 
-        when(bookService.searchBooks("Nouveau", null)).thenReturn(List.of(book));
+        when(bookService.searchBooks("Nouveau", null, null, null, null))
+                .thenReturn(BookPageDTO.builder().books(List.of(book)).build());
 
         // Act & Assert
         mockMvc.perform(get("/api/books/search")
@@ -137,6 +297,28 @@ class BookControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Nouveau Roman"));
     }
 
+    @Test
+    void shouldSearchBooksByText() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder()
+                .isbn("1234567890123")
+                .title("Nouveau Roman")
+                .summary("Résumé du livre.")
+                .build();
+
+        when(bookService.searchBooksByText("roman livre", null, null, null))
+                .thenReturn(BookPageDTO.builder().books(List.of(book)).nextCursor("next").build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/search")
+                        .param("q", "roman livre")
+                        .param("title", "ignored"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].title").value("Nouveau Roman"));
+        verify(bookService, never()).searchBooks(any(), any(), any(), any(), any());
+    }
+
     @Test
     void shouldSearchBooksByAuthor() throws Exception {
         // Arrange
@@ -149,7 +331,8 @@ class BookControllerTest {
                 .pageCount(300)
                 .build();
 
-        when(bookService.searchBooks(null, "Auteur")).thenReturn(List.of(book));
+        when(bookService.searchBooks(null, "Auteur", null, null, null))
+                .thenReturn(BookPageDTO.builder().books(List.of(book)).build());
 
         // Act & Assert
         mockMvc.perform(get("/api/books/search")
@@ -159,6 +342,38 @@ class BookControllerTest {
                 .andExpect(jsonPath("$[0].authors[0]").value("Auteur Inconnu"));
     }
 
+    @Test
+    void shouldSearchBooksOnCombinedCriteria() throws Exception {
+        // Arrange
+        BookSearchCriteria criteria = BookSearchCriteria.builder()
+                .title("Roman")
+                .author("Auteur")
+                .publishedFrom(LocalDate.of(2023, 1, 1))
+                .maxPages(300)
+                .match(BookSearchCriteria.Match.ANY)
+                .build();
+        when(bookSearchService.search(criteria, null, null, null))
+                .thenReturn(BookPageDTO.builder().books(List.of(BookDTO.builder().title("Un autre roman").build())).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/api/books/search")
+                        .param("title", "Roman")
+                        .param("author", "Auteur")
+                        .param("publishedFrom", "2023-01-01")
+                        .param("maxPages", "300")
+                        .param("match", "ANY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Un autre roman"));
+        verify(bookService, never()).searchBooks(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectMalformedSearchParameter() throws Exception {
+        mockMvc.perform(get("/api/books/search")
+                        .param("publishedFrom", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldUpdateBook() throws Exception {
         // Arrange
@@ -171,7 +386,7 @@ class BookControllerTest {
                 .pageCount(320)
                 .build();
 
-        when(bookService.updateBook(any(BookDTO.class))).thenReturn(updatedBook);
+        when(bookService.updateBook(any(BookDTO.class), isNull())).thenReturn(updatedBook);
 
         // Act & Assert
         mockMvc.perform(put("/api/books")
@@ -182,6 +397,22 @@ class BookControllerTest {
                 .andExpect(jsonPath("$.authors[0]").value("Auteur Modifié"));
     }
 
+    @Test
+    void shouldPatchBook() throws Exception {
+        // Arrange
+        BookDTO patchedBook = BookDTO.builder().isbn("1234567890123").title("Livre").summary("Un résumé corrigé.").version(3L).id(1L).build();
+        when(bookService.patchBook(eq("1234567890123"), eq(BookPatchDTO.builder().summary("Un résumé corrigé.").build()), isNull()))
+                .thenReturn(patchedBook);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/books/{isbn}", "1234567890123")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"summary\": \"Un résumé corrigé.\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, BookETag.of(1L, 3L)))
+                .andExpect(jsonPath("$.summary").value("Un résumé corrigé."));
+    }
+
     @Test
     void shouldDeleteBook() throws Exception {
         // Arrange
@@ -191,4 +422,35 @@ class BookControllerTest {
                 .andExpect(status().isOk());
         Mockito.verify(bookService).deleteBook("9999999999");
     }
+
+    @Test
+    void shouldExportBooksAsNdjson() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/books/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+        verify(bookExportService).exportBooks(any());
+    }
+
+    @Test
+    void shouldUpsertBooksInBulk() throws Exception {
+        // Arrange
+        BookDTO book = BookDTO.builder()
+                .isbn("1234567890123")
+                .title("Le Petit Prince")
+                .build();
+
+        when(bookBulkService.upsertBooks(List.of(book))).thenReturn(List.of(BulkItemResultDTO.builder()
+                .isbn("1234567890123")
+                .status(BulkItemResultDTO.Status.CREATED)
+                .build()));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(book))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("1234567890123"))
+                .andExpect(jsonPath("$[0].status").value("CREATED"));
+    }
 }
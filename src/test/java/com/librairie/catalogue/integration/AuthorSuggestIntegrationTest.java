@@ -0,0 +1,73 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.search.AuthorSuggestIndex;
+import com.librairie.catalogue.service.AuthorService;
+import com.librairie.catalogue.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AuthorSuggestIntegrationTest {
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private AuthorSuggestIndex authorSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        authorSuggestIndex.rebuild();
+    }
+
+    @Test
+    void shouldRankSuggestionsByBookCount() {
+        bookService.createBook(book("7000000001", "Suggested title", "Zygmunt Minor"));
+        bookService.createBook(book("7000000002", "Suggested title", "Zygmunt Major"));
+        bookService.createBook(book("7000000003", "Suggested title", "Zygmunt Major"));
+
+        assertThat(suggestions("zyg")).containsExactly("Zygmunt Major:2", "Zygmunt Minor:1");
+
+        bookService.updateBook(book("7000000002", "Suggested title", "Zygmunt Minor"));
+        bookService.deleteBook("7000000003");
+
+        assertThat(suggestions("zyg")).containsExactly("Zygmunt Minor:2", "Zygmunt Major:0");
+    }
+
+    @Test
+    void shouldFollowAuthorWrites() {
+        AuthorDTO created = authorService.createAuthor(AuthorDTO.builder().name("Ödön Suggest").build());
+        assertThat(suggestions("odon")).containsExactly("Ödön Suggest:0");
+        Long authorId = authorRepository.findByNameIgnoreCase(created.getName()).orElseThrow().getId();
+
+        authorService.updateAuthor(authorId, AuthorDTO.builder().name("Odile Suggest").build());
+        assertThat(suggestions("odon")).isEmpty();
+        assertThat(suggestions("odile s")).containsExactly("Odile Suggest:0");
+
+        authorService.deleteAuthor(authorId);
+        assertThat(suggestions("odile s")).isEmpty();
+    }
+
+    private List<String> suggestions(String prefix) {
+        return authorService.suggestAuthors(prefix, null).stream()
+                .map(suggestion -> suggestion.getName() + ":" + suggestion.getBookCount())
+                .toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.librairie.catalogue.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.model.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "catalogue.bulk.chunk-size=2")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class BookBulkIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldUpsertBooksInChunks() throws Exception {
+        List<BookDTO> books = List.of(
+                book("7000000001", "Bulk One", "Bulk Author"),
+                book("7000000002", "Bulk Two", "bulk author"),
+                book("bad", "Invalid", "Bulk Author"),
+                book("7000000003", "Bulk Three", "Other Bulk Author"));
+
+        mockMvc.perform(post("/api/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(books)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(4))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].status").value("FAILED"))
+                .andExpect(jsonPath("$[3].status").value("CREATED"));
+
+        mockMvc.perform(post("/api/books/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(book("7000000002", "Bulk Two Updated", "Bulk Author")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+
+        mockMvc.perform(get("/api/books/7000000002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Bulk Two Updated"))
+                .andExpect(jsonPath("$.authors[0]").value("Bulk Author"));
+    }
+}
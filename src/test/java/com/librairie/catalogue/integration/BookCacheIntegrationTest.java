@@ -0,0 +1,67 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.service.AuthorService;
+import com.librairie.catalogue.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookCacheIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldEvictBookOnceUpdateIsCommitted() {
+        bookService.createBook(book("6000000001", "Cached title", "Cache Author"));
+        assertThat(bookService.getBookByIsbn("6000000001").getTitle()).isEqualTo("Cached title");
+
+        bookService.updateBook(book("6000000001", "Updated title", "Cache Author"));
+
+        assertThat(bookService.getBookByIsbn("6000000001").getTitle()).isEqualTo("Updated title");
+    }
+
+    @Test
+    void shouldKeepCachedBookWhenUpdateIsRolledBack() {
+        bookService.createBook(book("6000000002", "Cached title", "Cache Author"));
+        assertThat(bookService.getBookByIsbn("6000000002").getTitle()).isEqualTo("Cached title");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.updateBook(book("6000000002", "Rolled back title", "Cache Author"));
+            // Read inside the writing transaction, this must not leak to the other readers
+            bookService.getBookByIsbn("6000000002");
+            status.setRollbackOnly();
+        });
+
+        assertThat(bookService.getBookByIsbn("6000000002").getTitle()).isEqualTo("Cached title");
+    }
+
+    @Test
+    void shouldEvictBooksWhenAuthorIsRenamed() {
+        bookService.createBook(book("6000000003", "Cached title", "Renamed Cache Author"));
+        assertThat(bookService.getBookByIsbn("6000000003").getAuthors()).containsExactly("Renamed Cache Author");
+        Long authorId = authorRepository.findByNameIgnoreCase("Renamed Cache Author").orElseThrow().getId();
+
+        authorService.updateAuthor(authorId, AuthorDTO.builder().name("New Cache Author").build());
+
+        assertThat(bookService.getBookByIsbn("6000000003").getAuthors()).containsExactly("New Cache Author");
+    }
+}
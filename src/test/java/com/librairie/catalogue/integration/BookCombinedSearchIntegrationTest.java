@@ -0,0 +1,137 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.config.BookSearchProperties;
+import com.librairie.catalogue.config.SearchIndexProperties;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.search.BookSearchIndex;
+import com.librairie.catalogue.service.BookSearchService;
+import com.librairie.catalogue.service.BookService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookCombinedSearchIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookSearchProperties bookSearchProperties;
+
+    @Autowired
+    private SearchIndexProperties searchIndexProperties;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeAll
+    void seedBooks() {
+        bookService.createBook(book("9100000001", "Combined voyage", "Combined Verne", LocalDate.of(1870, 1, 1), 400));
+        bookService.createBook(book("9100000002", "Combined voyage bis", "Combined Hugo", LocalDate.of(1862, 1, 1), 1500));
+        bookService.createBook(book("9100000003", "Combined misérables", "Combined Hugo", LocalDate.of(1862, 6, 1), 1900));
+        bookService.createBook(book("9100000004", "Combined île", "Combined Verne", LocalDate.of(1875, 1, 1), 600));
+        bookService.createBook(book("9100000005", "Harry and the Kings", "Rowan", LocalDate.of(1997, 6, 26), 300));
+        bookService.createBook(book("9100000006", "Sharra", "Rowan", LocalDate.of(1998, 1, 1), 200));
+        bookService.createBook(book("9100000007", "The Other Side", "Rowan", LocalDate.of(1999, 1, 1), 250));
+        bookService.createBook(book("9100000008", "Été indien", "Rowan", LocalDate.of(2000, 1, 1), 150));
+        bookService.createBook(book("9100000009", "Mathematics 100%", "Rowan", LocalDate.of(2001, 1, 1), 500));
+        bookSearchIndex.rebuild();
+    }
+
+    @Test
+    void shouldFindTheSameTitlesWithOrWithoutTheIndex() {
+        for (String title : List.of("harr", "the", "ARRY AND THE K", " sharra ", "ÉTÉ", "100%", "s 1", "_")) {
+            List<String> ranked = allIsbns((cursor, size) -> bookService.searchBooks(title, null, cursor, size));
+            List<String> combined = allIsbns((cursor, size) -> bookSearchService.search(
+                    BookSearchCriteria.builder().title(title).build(), cursor, size));
+            searchIndexProperties.setEnabled(false);
+            try {
+                List<String> database = allIsbns((cursor, size) -> bookService.searchBooks(title, null, cursor, size));
+
+                assertThat(ranked).as(title).containsExactlyInAnyOrderElementsOf(database);
+                assertThat(combined).as(title).containsExactlyElementsOf(database);
+            } finally {
+                searchIndexProperties.setEnabled(true);
+            }
+        }
+        assertThat(allIsbns((cursor, size) -> bookService.searchBooks("harr", null, cursor, size)))
+                .containsExactlyInAnyOrder("9100000005", "9100000006");
+    }
+
+    @Test
+    void shouldMatchEveryCriterion() {
+        assertThat(isbns(BookSearchCriteria.builder().title("combined voyage").author("combined hugo").build()))
+                .containsExactly("9100000002");
+        assertThat(isbns(BookSearchCriteria.builder()
+                .author("combined verne")
+                .publishedFrom(LocalDate.of(1871, 1, 1))
+                .maxPages(1000)
+                .build()))
+                .containsExactly("9100000004");
+    }
+
+    @Test
+    void shouldMatchAnyCriterion() {
+        assertThat(isbns(BookSearchCriteria.builder()
+                .title("combined île")
+                .author("combined hugo")
+                .match(BookSearchCriteria.Match.ANY)
+                .build()))
+                .containsExactly("9100000002", "9100000003", "9100000004");
+    }
+
+    @Test
+    void shouldPageThroughTruncatedCriteria() {
+        int subQueryLimit = bookSearchProperties.getSubQueryLimit();
+        bookSearchProperties.setSubQueryLimit(1);
+        try {
+            BookSearchCriteria criteria = BookSearchCriteria.builder().title("combined").author("combined").build();
+            List<String> isbns = new ArrayList<>();
+            String cursor = null;
+            do {
+                BookPageDTO page = bookSearchService.search(criteria, cursor, 1);
+                page.getBooks().forEach(book -> isbns.add(book.getIsbn()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertThat(isbns).containsExactly("9100000001", "9100000002", "9100000003", "9100000004");
+        } finally {
+            bookSearchProperties.setSubQueryLimit(subQueryLimit);
+        }
+    }
+
+    // Every book found, following the cursors
+    private static List<String> allIsbns(BiFunction<String, Integer, BookPageDTO> search) {
+        List<String> isbns = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookPageDTO page = search.apply(cursor, 2);
+            page.getBooks().forEach(book -> isbns.add(book.getIsbn()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return isbns;
+    }
+
+    private List<String> isbns(BookSearchCriteria criteria) {
+        return bookSearchService.search(criteria, null, null).getBooks().stream().map(BookDTO::getIsbn).toList();
+    }
+}
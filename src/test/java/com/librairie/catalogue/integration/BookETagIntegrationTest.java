@@ -0,0 +1,116 @@
+package com.librairie.catalogue.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.service.AuthorService;
+import com.librairie.catalogue.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class BookETagIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Test
+    void shouldAnswerNotModifiedUntilBookChanges() throws Exception {
+        bookService.createBook(book("8000000001", "Tagged title", "Tag Author"));
+        String eTag = eTag("/api/books/8000000001");
+
+        mockMvc.perform(get("/api/books/8000000001").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        bookService.updateBook(book("8000000001", "Retagged title", "Tag Author"));
+
+        mockMvc.perform(get("/api/books/8000000001").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Retagged title"));
+    }
+
+    @Test
+    void shouldChangeBookTagWhenAuthorIsRenamed() throws Exception {
+        bookService.createBook(book("8000000002", "Tagged title", "Renamed Tag Author"));
+        String eTag = eTag("/api/books/8000000002");
+        Long authorId = authorRepository.findByNameIgnoreCase("Renamed Tag Author").orElseThrow().getId();
+
+        authorService.updateAuthor(authorId, AuthorDTO.builder().name("New Tag Author").build());
+
+        mockMvc.perform(get("/api/books/8000000002").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors[0]").value("New Tag Author"));
+    }
+
+    @Test
+    void shouldChangeCollectionTagOnAnyWrite() throws Exception {
+        String eTag = eTag("/api/books");
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        bookService.createBook(book("8000000003", "Tagged title", "Tag Author"));
+
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldRejectUpdatesOfModifiedBook() throws Exception {
+        BookDTO created = bookService.createBook(book("8000000004", "Tagged title", "Tag Author"));
+        String eTag = eTag("/api/books/8000000004");
+
+        String newETag = mockMvc.perform(put("/api/books")
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(created.toBuilder().title("First update").build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(created.getVersion() + 1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newETag).isNotEqualTo(eTag);
+
+        // Both the stale tag and the stale version of the body are refused
+        mockMvc.perform(put("/api/books")
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book("8000000004", "Lost update", "Tag Author"))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(created.toBuilder().title("Lost update").build())))
+                .andExpect(status().isConflict());
+    }
+
+    private String eTag(String path) throws Exception {
+        return mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
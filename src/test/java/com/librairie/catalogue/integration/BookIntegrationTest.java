@@ -1,21 +1,30 @@
 package com.librairie.catalogue.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.cache.CatalogueVersion;
+import com.librairie.catalogue.metrics.StatementCounter;
 import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.service.BookBulkService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -30,6 +39,15 @@ class BookIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BookBulkService bookBulkService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogueVersion catalogueVersion;
+
     private String bookIsbn;
 
     @Test
@@ -64,6 +82,15 @@ class BookIntegrationTest {
 
     @Test
     @Order(3)
+    void shouldExportBooksAsNdjson() throws Exception {
+        mockMvc.perform(get("/api/books/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"isbn\":\"" + bookIsbn + "\"")));
+    }
+
+    @Test
+    @Order(4)
     void shouldSearchBookByTitle() throws Exception {
         mockMvc.perform(get("/api/books/search")
                         .param("title", "Functional Test Book"))
@@ -72,7 +99,7 @@ class BookIntegrationTest {
     }
 
     @Test
-    @Order(4)
+    @Order(5)
     void shouldUpdateBook() throws Exception {
         BookDTO updatedBook = BookDTO.builder()
                 .isbn(bookIsbn)
@@ -91,16 +118,161 @@ class BookIntegrationTest {
     }
 
     @Test
-    @Order(5)
+    @Order(6)
     void shouldDeleteBook() throws Exception {
         mockMvc.perform(delete("/api/books/" + bookIsbn))
                 .andExpect(status().isOk());
     }
 
     @Test
-    @Order(6)
+    @Order(7)
     void shouldReturnNotFoundAfterDeletion() throws Exception {
         mockMvc.perform(get("/api/books/" + bookIsbn))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @Order(8)
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/books")
+                        .param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(9)
+    void shouldListHundredBooksWithinThreeStatements() throws Exception {
+        bookBulkService.upsertBooks(IntStream.rangeClosed(1, 100)
+                .mapToObj(i -> BookDTO.builder()
+                        .isbn(String.format("33%08d", i))
+                        .title("Statement count book " + i)
+                        .authors(List.of("Statement count author " + i, "Statement count co-author"))
+                        .build())
+                .toList());
+
+        // The authors of the page are read after the books, by a query of their own
+        assertStatements(3, get("/api/books").param("size", "100"));
+    }
+
+    @Test
+    @Order(10)
+    void shouldGetUncachedBookWithinThreeStatements() throws Exception {
+        assertStatements(3, get("/api/books/3300000042"));
+    }
+
+    @Test
+    @Order(11)
+    void shouldSearchBooksByAuthorWithinThreeStatements() throws Exception {
+        assertStatements(3, get("/api/books/search").param("author", "Statement count co-author").param("size", "100"));
+    }
+
+    @Test
+    @Order(12)
+    void shouldCreateBookWithNewAuthorsWithinFixedStatements() throws Exception {
+        BookDTO book = BookDTO.builder()
+                .isbn("3300000101")
+                .title("Statement count anthology")
+                .authors(IntStream.rangeClosed(1, 10).mapToObj(i -> "Statement count anthologist " + i).toList())
+                .build();
+
+        assertStatements(6, post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(book)));
+    }
+
+    @Test
+    @Order(13)
+    void shouldPatchSummaryWithoutRewritingAuthors() throws Exception {
+        // The book and its authors are read from the database, not from the second-level cache
+        assertStatements(4, patch("/api/books/3300000101")
+                .contentType("application/merge-patch+json")
+                .content("{\"summary\": \"Patched summary\"}"));
+
+        mockMvc.perform(get("/api/books/3300000101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary").value("Patched summary"))
+                .andExpect(jsonPath("$.title").value("Statement count anthology"))
+                .andExpect(jsonPath("$.authors.length()").value(10));
+    }
+
+    @Test
+    @Order(14)
+    void shouldPatchAuthorsWithinFixedStatements() throws Exception {
+        List<String> authors = IntStream.rangeClosed(2, 11).mapToObj(i -> "Statement count anthologist " + i).toList();
+
+        // The sequence of the new author may be fetched too, the book and its authors are read from the database
+        assertStatements(9, patch("/api/books/3300000101")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(BookPatchDTO.builder().authors(authors).build())));
+
+        mockMvc.perform(get("/api/books/3300000101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors", containsInAnyOrder(authors.toArray())));
+    }
+
+    @Test
+    @Order(15)
+    void shouldListOnlyRequestedFieldsWithinTwoStatements() throws Exception {
+        assertStatements(2, get("/api/books").param("size", "100").param("fields", "isbn,title"));
+
+        mockMvc.perform(get("/api/books/search").param("title", "Statement count book 42").param("fields", "isbn,title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("3300000042"))
+                .andExpect(jsonPath("$[0].title").value("Statement count book 42"))
+                .andExpect(jsonPath("$[0].summary").doesNotExist())
+                .andExpect(jsonPath("$[0].authors").doesNotExist())
+                .andExpect(jsonPath("$[0].pageCount").doesNotExist());
+    }
+
+    @Test
+    @Order(16)
+    void shouldJoinAuthorsOnlyWhenRequested() throws Exception {
+        assertStatements(3, get("/api/books/search").param("author", "Statement count co-author").param("size", "100")
+                .param("fields", "title,authors"));
+
+        mockMvc.perform(get("/api/books/search").param("title", "Statement count book 42").param("fields", "authors"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].authors", containsInAnyOrder("Statement count author 42", "Statement count co-author")))
+                .andExpect(jsonPath("$[0].isbn").doesNotExist());
+    }
+
+    @Test
+    @Order(17)
+    void shouldRejectUnknownField() throws Exception {
+        mockMvc.perform(get("/api/books").param("fields", "isbn,price"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(18)
+    void shouldFindBooksCreatedByAnotherInstance() throws Exception {
+        // Written behind the ISBN filter of this instance
+        jdbcTemplate.update("insert into book (id, isbn, title, page_count, version) values (?, ?, ?, ?, ?)",
+                990001L, "5100000001", "Other Instance Book", 100, 0L);
+        BookDTO duplicate = BookDTO.builder()
+                .isbn("5100000001")
+                .title("Duplicate Book")
+                .authors(List.of("Author"))
+                .publicationDate(LocalDate.of(2024, 1, 1))
+                .pageCount(100)
+                .build();
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(duplicate)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete("/api/books/5100000001"))
+                .andExpect(status().isOk());
+    }
+
+    // N+1 selects on the lazy Book.authors collection would grow with the number of books returned
+    private void assertStatements(int maxStatements, RequestBuilder request) throws Exception {
+        // The collection ETag is read again after every write, it is not counted in the budget of the request
+        catalogueVersion.eTag();
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            mockMvc.perform(request).andExpect(status().isOk());
+
+            assertThat(scope.count()).isBetween(1, maxStatements);
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.search.BookSearchIndex;
+import com.librairie.catalogue.service.BookBulkService;
+import com.librairie.catalogue.service.BookExportService;
+import com.librairie.catalogue.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards against N+1 selects on the lazy Book.authors collection: reading a page of books must cost
+ * the same number of statements whatever the page size. The authors of a page are read by one query of their own,
+ * after the books.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookQueryCountTest {
+    private static final int BOOK_COUNT = 30;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BookBulkService bookBulkService;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    void seedBooks() {
+        bookBulkService.upsertBooks(IntStream.rangeClosed(1, BOOK_COUNT)
+                .mapToObj(i -> BookDTO.builder()
+                        .isbn(String.format("88%08d", i))
+                        .title("Query count book " + i)
+                        .authors(List.of("Query count author " + i, "Query count co-author " + i))
+                        .build())
+                .toList());
+        // Searches by title are answered by the index once built, the build is asynchronous at startup
+        bookSearchIndex.rebuild();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void clearStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void shouldListBooksWithThreeStatements() {
+        BookPageDTO page = bookService.getAllBooks(null, BOOK_COUNT);
+
+        assertThat(page.getBooks()).hasSizeGreaterThanOrEqualTo(BOOK_COUNT);
+        assertThat(page.getBooks()).allSatisfy(book -> assertThat(book.getAuthors()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSearchBooksByTitleWithTwoStatements() {
+        BookPageDTO page = bookService.searchBooks("Query count book", null, null, BOOK_COUNT);
+
+        assertThat(page.getBooks()).hasSize(BOOK_COUNT);
+        assertThat(page.getBooks()).allSatisfy(book -> assertThat(book.getAuthors()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSearchBooksByTextWithTwoStatements() {
+        BookPageDTO page = bookService.searchBooksByText("count book 7", null, BOOK_COUNT);
+
+        assertThat(page.getBooks()).extracting(BookDTO::getIsbn).containsExactly("8800000007");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSearchBooksByAuthorWithThreeStatements() {
+        BookPageDTO page = bookService.searchBooks(null, "Query count co-author", null, BOOK_COUNT);
+
+        assertThat(page.getBooks()).hasSize(BOOK_COUNT);
+        assertThat(page.getBooks()).allSatisfy(book -> assertThat(book.getAuthors()).hasSize(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldGetBookWithTwoStatements() {
+        bookCache.invalidateAll();
+
+        BookDTO book = bookService.getBookByIsbn("8800000001");
+
+        assertThat(book.getAuthors()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGetCachedBookWithoutStatement() {
+        bookService.getBookByIsbn("8800000002");
+        statistics.clear();
+
+        BookDTO book = bookService.getBookByIsbn("8800000002");
+
+        assertThat(book.getAuthors()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getTransactionCount()).isZero();
+    }
+
+    @Test
+    void shouldExportChunkWithTwoStatements() throws Exception {
+        long count = bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        assertThat(count).isGreaterThanOrEqualTo(BOOK_COUNT);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,127 @@
+package com.librairie.catalogue.integration;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.controller.BookController;
+import com.librairie.catalogue.model.ChangeLogEntry;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.ChangeDTO;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.service.AuthorService;
+import com.librairie.catalogue.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ChangeFeedIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void shouldPageThroughBookChangesInOrder() throws Exception {
+        String since = currentCursor();
+
+        bookService.createBook(book("6600000001", "Change feed book 6600000001", "Change feed author"));
+        bookService.updateBook(book("6600000001", "Updated", "Change feed author"));
+        bookService.deleteBook("6600000001");
+
+        assertThat(readChanges(since))
+                .filteredOn(change -> change.getResource() == ChangeLogEntry.Resource.BOOK)
+                .extracting(ChangeDTO::getType, ChangeDTO::getResourceId)
+                .containsExactly(
+                        tuple(ChangeLogEntry.ChangeType.CREATED, "6600000001"),
+                        tuple(ChangeLogEntry.ChangeType.UPDATED, "6600000001"),
+                        tuple(ChangeLogEntry.ChangeType.DELETED, "6600000001"));
+    }
+
+    @Test
+    void shouldNotRecordRolledBackChanges() throws Exception {
+        String since = currentCursor();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.createBook(book("6600000002", "Change feed book 6600000002", "Change feed author"));
+            status.setRollbackOnly();
+        });
+
+        assertThat(readChanges(since)).extracting(ChangeDTO::getResourceId).doesNotContain("6600000002");
+    }
+
+    @Test
+    void shouldRecordBooksOfRenamedAuthor() throws Exception {
+        bookService.createBook(book("6600000003", "Change feed book 6600000003", "Change feed renamed author"));
+        Long id = authorRepository.findByNameIgnoreCase("Change feed renamed author").orElseThrow().getId();
+        String since = currentCursor();
+
+        authorService.updateAuthor(id, AuthorDTO.builder().name("Change feed author renamed").build());
+
+        assertThat(readChanges(since))
+                .extracting(ChangeDTO::getResource, ChangeDTO::getType, ChangeDTO::getResourceId)
+                .containsExactly(
+                        tuple(ChangeLogEntry.Resource.AUTHOR, ChangeLogEntry.ChangeType.UPDATED, id.toString()),
+                        tuple(ChangeLogEntry.Resource.BOOK, ChangeLogEntry.ChangeType.UPDATED, "6600000003"));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/changes").param("since", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String currentCursor() throws Exception {
+        return mockMvc.perform(get("/api/changes/cursor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    // Two changes per page, until a page comes back empty
+    private List<ChangeDTO> readChanges(String since) throws Exception {
+        List<ChangeDTO> changes = new ArrayList<>();
+        String cursor = since;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/api/changes").param("since", cursor).param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            List<ChangeDTO> page = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            if (page.isEmpty()) {
+                return changes;
+            }
+            changes.addAll(page);
+            cursor = result.getResponse().getHeader(BookController.NEXT_CURSOR_HEADER);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.librairie.catalogue.integration;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.librairie.catalogue.model.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ContentNegotiationIntegrationTest {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldCreateAndSearchBooksInCbor() throws Exception {
+        ObjectMapper cborMapper = objectMapper.copyWith(new CBORFactory());
+        BookDTO book = book("7700000001", "Negotiated book 7700000001", "Negotiated author").toBuilder()
+                .publicationDate(LocalDate.of(2020, 5, 17))
+                .summary("Summary of a book sent and read in a binary encoding")
+                .build();
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(book)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+
+        byte[] body = mockMvc.perform(get("/api/books/search")
+                        .param("title", "Negotiated book 7700000001")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<BookDTO> books = cborMapper.readValue(body, new TypeReference<>() {
+        });
+        assertThat(books).extracting(BookDTO::getIsbn).containsExactly("7700000001");
+        assertThat(books.getFirst().getPublicationDate()).isEqualTo(book.getPublicationDate());
+    }
+
+    @Test
+    void shouldListAuthorsInSmile() throws Exception {
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(book("7700000002", "Negotiated book 7700000002", "Negotiated author"))))
+                .andExpect(status().isOk());
+
+        byte[] body = mockMvc.perform(get("/api/authors").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<?> authors = objectMapper.copyWith(new SmileFactory()).readValue(body, List.class);
+        assertThat(authors).isNotEmpty();
+    }
+
+    @Test
+    void shouldAnswerJsonByDefault() throws Exception {
+        mockMvc.perform(get("/api/books").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+}
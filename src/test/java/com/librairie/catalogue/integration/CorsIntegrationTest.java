@@ -0,0 +1,46 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.controller.BookController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class CorsIntegrationTest {
+    private static final String ORIGIN = "https://catalogue-lexum.netlify.app";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldExposePaginationAndETagHeadersToTheUi() throws Exception {
+        mockMvc.perform(get("/api/books").param("size", "1").header(HttpHeaders.ORIGIN, ORIGIN))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, ORIGIN))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                        allOf(containsString(BookController.NEXT_CURSOR_HEADER), containsString(HttpHeaders.ETAG))));
+    }
+
+    @Test
+    void shouldAllowPatchOnPreflight() throws Exception {
+        mockMvc.perform(options("/api/books/1234567890")
+                        .header(HttpHeaders.ORIGIN, ORIGIN)
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "PATCH")
+                        .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, HttpHeaders.CONTENT_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, containsString("PATCH")));
+    }
+}
@@ -0,0 +1,99 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BookService bookService;
+
+    @AfterEach
+    void enableInstrumentation() throws Exception {
+        setInstrumentation(true);
+    }
+
+    @Test
+    void shouldTimeServicesAndRepositories() throws Exception {
+        bookService.createBook(book("5500000001", "Measured title", "Measured Author"));
+
+        mockMvc.perform(get("/api/books/5500000001")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/5500000099")).andExpect(status().isNotFound());
+
+        assertThat(count("catalogue.service", "BookService", "getEncodedBook", "none")).isPositive();
+        assertThat(count("catalogue.service", "BookService", "createBook", "none")).isPositive();
+        assertThat(count("catalogue.repository", "BookRepository", "save", "none")).isPositive();
+        assertThat(count("catalogue.service", "BookService", "getBookETag", "ResourceNotFoundException")).isPositive();
+    }
+
+    @Test
+    void shouldExposeMetricsToPrometheus() throws Exception {
+        bookService.createBook(book("5500000002", "Measured title", "Measured Author"));
+        mockMvc.perform(get("/api/books/5500000002")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("catalogue_service_seconds_count{class=\"BookService\"")))
+                .andExpect(content().string(containsString("catalogue_repository_seconds_count{class=\"BookRepository\"")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hibernate_flushes_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"books\"")));
+    }
+
+    @Test
+    void shouldStopRecordingOnceInstrumentationIsDisabled() throws Exception {
+        bookService.createBook(book("5500000003", "Measured title", "Measured Author"));
+        bookService.getBookByIsbn("5500000003");
+        double count = count("catalogue.service", "BookService", "getBookByIsbn", "none");
+
+        setInstrumentation(false);
+        bookService.getBookByIsbn("5500000003");
+
+        mockMvc.perform(get("/actuator/instrumentation")).andExpect(jsonPath("$.enabled").value(false));
+        assertThat(count("catalogue.service", "BookService", "getBookByIsbn", "none")).isEqualTo(count);
+    }
+
+    private void setInstrumentation(boolean enabled) throws Exception {
+        mockMvc.perform(post("/actuator/instrumentation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"enabled\": " + enabled + "}"))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    private double count(String name, String type, String method, String exception) {
+        Timer timer = meterRegistry.find(name)
+                .tags("class", type, "method", method, "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,174 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.cache.SecondLevelCache;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.metrics.StatementCounter;
+import com.librairie.catalogue.model.Author;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.service.AuthorService;
+import com.librairie.catalogue.service.BookETag;
+import com.librairie.catalogue.service.BookExportService;
+import com.librairie.catalogue.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.librairie.catalogue.integration.TestBooks.book;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void shouldReadCachedBookWithoutStatements() {
+        bookService.createBook(book("4400000001", "Second-level cache book 4400000001", "Cached author"));
+        readBook("4400000001");
+
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            BookDTO book = readBook("4400000001");
+
+            assertThat(book.getAuthors()).containsExactly("Cached author");
+            assertThat(scope.count()).isZero();
+        }
+        assertThat(meterRegistry.get("catalogue.second-level-cache.hit-ratio")
+                .tag("region", SecondLevelCache.BOOK).gauge().value()).isPositive();
+    }
+
+    @Test
+    void shouldReadBookAsUpdatedThenDeleted() {
+        bookService.createBook(book("4400000002", "Second-level cache book 4400000002", "Updated book author"));
+        readBook("4400000002");
+
+        bookService.patchBook("4400000002", BookPatchDTO.builder()
+                .summary("Patched summary")
+                .authors(List.of("Updated book author", "Added author"))
+                .build(), null);
+        BookDTO book = readBook("4400000002");
+        assertThat(book.getSummary()).isEqualTo("Patched summary");
+        assertThat(book.getAuthors()).containsExactlyInAnyOrder("Updated book author", "Added author");
+
+        bookService.deleteBook("4400000002");
+        assertThat(inTransaction(() -> bookRepository.findByIsbn("4400000002"))).isEmpty();
+    }
+
+    @Test
+    void shouldMatchIfMatchAgainstBookWrittenByAnotherInstance() {
+        bookService.createBook(book("4400000004", "Second-level cache book 4400000004", "Concurrent author"));
+        BookDTO cached = readBook("4400000004");
+        // Written behind the cache, as another instance would
+        jdbcTemplate.update("update book set version = version + 1 where isbn = ?", "4400000004");
+        String ifMatch = BookETag.of(cached.getId(), cached.getVersion() + 1);
+
+        BookDTO patched = bookService.patchBook("4400000004", BookPatchDTO.builder().summary("Patched after").build(), ifMatch);
+
+        assertThat(patched.getVersion()).isEqualTo(cached.getVersion() + 2);
+    }
+
+    @Test
+    void shouldExportWithoutFillingTheCache() throws Exception {
+        bookService.createBook(book("4400000005", "Second-level cache book 4400000005", "Exported author"));
+        Long id = readBook("4400000005").getId();
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Book.class, id);
+        cache.evictCollectionData(Book.class.getName() + ".authors", id);
+
+        bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        assertThat(cache.containsEntity(Book.class, id)).isFalse();
+        assertThat(cache.containsCollection(Book.class.getName() + ".authors", id)).isFalse();
+        readBook("4400000005");
+        assertThat(cache.containsEntity(Book.class, id)).isTrue();
+    }
+
+    @Test
+    void shouldReadAuthorAsRenamed() {
+        bookService.createBook(book("4400000003", "Second-level cache book 4400000003", "Author before renaming"));
+        readBook("4400000003");
+        Long id = inTransaction(() -> authorRepository.findByNameIgnoreCase("Author before renaming")).orElseThrow().getId();
+
+        authorService.updateAuthor(id, AuthorDTO.builder().name("Author after renaming").build());
+
+        assertThat(readBook("4400000003").getAuthors()).containsExactly("Author after renaming");
+        assertThat(inTransaction(() -> authorRepository.findById(id)).orElseThrow().getName()).isEqualTo("Author after renaming");
+        assertThat(inTransaction(() -> authorRepository.findByNameIgnoreCase("Author before renaming"))).isEmpty();
+        assertThat(inTransaction(() -> authorRepository.findByNameIgnoreCase("author after renaming"))).isPresent();
+    }
+
+    @Test
+    void shouldNotFindDeletedAuthor() {
+        authorService.createAuthor(AuthorDTO.builder().name("Deleted author").build());
+        Author author = inTransaction(() -> authorRepository.findByNameIgnoreCase("Deleted author")).orElseThrow();
+        inTransaction(() -> authorRepository.findById(author.getId()));
+
+        authorService.deleteAuthor(author.getId());
+
+        assertThat(inTransaction(() -> authorRepository.findById(author.getId()))).isEmpty();
+        assertThat(inTransaction(() -> authorRepository.findByNameIgnoreCase("Deleted author"))).isEmpty();
+    }
+
+    // Each read in its own transaction, hence its own session: only the second-level cache is shared
+    private BookDTO readBook(String isbn) {
+        return inTransaction(() -> bookRepository.findByIsbn(isbn).map(bookMapper::bookToBookDTO).orElseThrow());
+    }
+
+    private <T> T inTransaction(Supplier<T> read) {
+        return transaction.execute(status -> read.get());
+    }
+}
@@ -0,0 +1,30 @@
+package com.librairie.catalogue.integration;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Books written by the integration tests. The fields a test relies on are given to it, the others are set through
+ * {@link BookDTO#toBuilder()}.
+ */
+final class TestBooks {
+
+    private TestBooks() {
+    }
+
+    static BookDTO book(String isbn, String title, String author) {
+        return book(isbn, title, author, null, 100);
+    }
+
+    static BookDTO book(String isbn, String title, String author, LocalDate publicationDate, int pageCount) {
+        return BookDTO.builder()
+                .isbn(isbn)
+                .title(title)
+                .authors(List.of(author))
+                .publicationDate(publicationDate)
+                .pageCount(pageCount)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.librairie.catalogue.metrics;
+
+import com.librairie.catalogue.config.StatementBudgetProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementBudgetFilterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Instrumentation instrumentation = mock(Instrumentation.class);
+    private final StatementBudgetProperties properties = new StatementBudgetProperties();
+    private final StatementBudgetFilter filter = new StatementBudgetFilter(properties, instrumentation, meterRegistry);
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/books");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books");
+    }
+
+    @Test
+    void shouldRecordStatementsOfRequest() throws Exception {
+        when(instrumentation.isEnabled()).thenReturn(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            StatementCounter.increment();
+            StatementCounter.increment();
+        });
+
+        DistributionSummary summary = meterRegistry.find("catalogue.request.statements")
+                .tags("method", "GET", "uri", "/api/books")
+                .summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCountStatementsOverBudgetWithoutInstrumentation() throws Exception {
+        properties.setEnabled(true);
+        properties.setMaxStatements(1);
+
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                StatementCounter.increment();
+                StatementCounter.increment();
+            });
+
+            assertThat(scope.count()).isEqualTo(2);
+        }
+        assertThat(meterRegistry.find("catalogue.request.statements").summary()).isNull();
+    }
+}
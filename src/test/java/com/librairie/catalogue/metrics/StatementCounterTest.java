@@ -0,0 +1,52 @@
+package com.librairie.catalogue.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementCounterTest {
+
+    @Test
+    void shouldCountInEveryOpenScope() {
+        try (StatementCounter.Scope outer = StatementCounter.open()) {
+            StatementCounter.increment();
+            try (StatementCounter.Scope inner = StatementCounter.open()) {
+                StatementCounter.increment();
+                StatementCounter.increment();
+
+                assertThat(inner.count()).isEqualTo(2);
+            }
+            StatementCounter.increment();
+
+            assertThat(outer.count()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void shouldNotCountOnceClosed() {
+        StatementCounter.Scope scope = StatementCounter.open();
+        scope.close();
+
+        StatementCounter.increment();
+
+        assertThat(scope.count()).isZero();
+    }
+
+    @Test
+    void shouldCountPropagatedTasks() throws Exception {
+        try (StatementCounter.Scope scope = StatementCounter.open();
+             ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            executor.submit(StatementCounter.propagate(() -> {
+                StatementCounter.increment();
+                return null;
+            })).get();
+            // The worker thread does not keep the scope once the task is done
+            executor.submit(StatementCounter::increment).get();
+
+            assertThat(scope.count()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.librairie.catalogue.repository;
+
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookProjectionRepositoryImplTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Object[]> booksQuery;
+
+    @Mock
+    private TypedQuery<Object[]> authorsQuery;
+
+    @InjectMocks
+    private BookProjectionRepositoryImpl repository;
+
+    @Test
+    void shouldSelectOnlyRequestedColumnsWithoutAuthors() {
+        when(entityManager.createQuery("select b.id, b.isbn, b.title from Book b where b.id in :keys", Object[].class))
+                .thenReturn(booksQuery);
+        when(booksQuery.setParameter(anyString(), any())).thenReturn(booksQuery);
+        when(booksQuery.getResultList()).thenReturn(List.<Object[]>of(new Object[]{1L, "1234567890", "Title"}));
+
+        List<BookDTO> books = repository.findFieldsByIdIn(List.of(1L), EnumSet.of(BookField.ISBN, BookField.TITLE));
+
+        assertThat(books).extracting(BookDTO::getId, BookDTO::getIsbn, BookDTO::getTitle, BookDTO::getSummary, BookDTO::getAuthors)
+                .containsExactly(tuple(1L, "1234567890", "Title", null, null));
+        verify(entityManager, times(1)).createQuery(anyString(), eq(Object[].class));
+    }
+
+    @Test
+    void shouldReadAuthorsWhenRequested() {
+        when(entityManager.createQuery("select b.id, b.isbn, b.pageCount from Book b where b.isbn in :keys", Object[].class))
+                .thenReturn(booksQuery);
+        when(entityManager.createQuery("select b.id, a.name from Book b join b.authors a where b.id in :ids", Object[].class))
+                .thenReturn(authorsQuery);
+        when(booksQuery.setParameter(anyString(), any())).thenReturn(booksQuery);
+        when(authorsQuery.setParameter(anyString(), any())).thenReturn(authorsQuery);
+        when(booksQuery.getResultList()).thenReturn(List.of(new Object[]{1L, "1234567890", 120}, new Object[]{2L, "0987654321", 80}));
+        when(authorsQuery.getResultList()).thenReturn(List.of(new Object[]{1L, "First author"}, new Object[]{1L, "Second author"}));
+
+        List<BookDTO> books = repository.findFieldsByIsbnIn(List.of("1234567890", "0987654321"),
+                EnumSet.of(BookField.AUTHORS, BookField.PAGE_COUNT));
+
+        assertThat(books).extracting(BookDTO::getIsbn, BookDTO::getPageCount, BookDTO::getAuthors)
+                .containsExactlyInAnyOrder(
+                        tuple("1234567890", 120, List.of("First author", "Second author")),
+                        tuple("0987654321", 80, List.of()));
+        verify(authorsQuery).setParameter("ids", Set.of(1L, 2L));
+    }
+}
@@ -0,0 +1,121 @@
+package com.librairie.catalogue.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthorTrieTest {
+    private AuthorTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new AuthorTrie(2);
+        trie.putAll(Stream.of(
+                new AuthorTrie.Suggestion(1, "Victor Hugo", 12),
+                new AuthorTrie.Suggestion(2, "Vercors", 2),
+                new AuthorTrie.Suggestion(3, "Boris Vian", 5),
+                new AuthorTrie.Suggestion(4, "Émile Zola", 20),
+                new AuthorTrie.Suggestion(5, "Virginia Woolf", 7)));
+    }
+
+    @Test
+    void shouldSuggestMostProlificAuthorsForPrefix() {
+        assertThat(names(trie.suggest("v", 10))).containsExactly("Victor Hugo", "Virginia Woolf");
+        assertThat(names(trie.suggest("vi", 10))).containsExactly("Victor Hugo", "Virginia Woolf");
+        assertThat(names(trie.suggest("ve", 10))).containsExactly("Vercors");
+        assertThat(trie.suggest("x", 10)).isEmpty();
+        assertThat(trie.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreAccentsCaseAndSpaces() {
+        assertThat(names(trie.suggest("EMILE", 10))).containsExactly("Émile Zola");
+        assertThat(names(trie.suggest("  victor   h", 10))).containsExactly("Victor Hugo");
+    }
+
+    @Test
+    void shouldFollowBookCounts() {
+        trie.addBooks("Vercors", 15);
+        assertThat(names(trie.suggest("v", 10))).containsExactly("Vercors", "Victor Hugo");
+
+        trie.addBooks("Vercors", -15);
+        trie.addBooks("Unknown", 3);
+        assertThat(names(trie.suggest("v", 10))).containsExactly("Victor Hugo", "Virginia Woolf");
+    }
+
+    @Test
+    void shouldFollowRenamesAndRemovals() {
+        trie.rename(1, "Victor Hugo", "Hugo, Victor");
+        assertThat(names(trie.suggest("v", 10))).containsExactly("Virginia Woolf", "Vercors");
+        assertThat(trie.suggest("hugo", 10)).containsExactly(new AuthorTrie.Suggestion(1, "Hugo, Victor", 12));
+
+        trie.remove(5, "Virginia Woolf");
+        assertThat(names(trie.suggest("v", 10))).containsExactly("Vercors");
+        assertThat(trie.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldKeepHomonymsApart() {
+        trie.put(6, "Victor Hugo ", 1);
+        trie.put(6, "Victor Hugo ", 1);
+
+        assertThat(trie.suggest("victor", 10)).extracting(AuthorTrie.Suggestion::id).containsExactly(1L, 6L);
+        assertThat(trie.size()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldMatchBruteForceAfterRandomChanges() {
+        AuthorTrie randomTrie = new AuthorTrie(3);
+        Map<Long, AuthorTrie.Suggestion> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 5_000; step++) {
+            long id = random.nextInt(300);
+            AuthorTrie.Suggestion current = expected.get(id);
+            if (current == null) {
+                String name = randomName(random);
+                randomTrie.put(id, name, 0);
+                expected.put(id, new AuthorTrie.Suggestion(id, name, 0));
+            } else if (random.nextInt(4) == 0) {
+                randomTrie.remove(id, current.name());
+                expected.remove(id);
+            } else if (random.nextInt(4) == 0) {
+                String name = randomName(random);
+                randomTrie.rename(id, current.name(), name);
+                expected.put(id, new AuthorTrie.Suggestion(id, name, current.bookCount()));
+            } else if (expected.values().stream().filter(other -> other.name().equals(current.name())).count() == 1) {
+                randomTrie.addBooks(current.name(), 1);
+                expected.put(id, new AuthorTrie.Suggestion(id, current.name(), current.bookCount() + 1));
+            }
+        }
+
+        for (String prefix : List.of("a", "b", "ab", "ba", "abc", "c", "cab")) {
+            List<AuthorTrie.Suggestion> bruteForce = expected.values().stream()
+                    .filter(author -> author.name().startsWith(prefix))
+                    .sorted(Comparator.comparingInt(AuthorTrie.Suggestion::bookCount).reversed()
+                            .thenComparing(AuthorTrie.Suggestion::name))
+                    .limit(3)
+                    .toList();
+            assertThat(randomTrie.suggest(prefix, 3))
+                    .extracting(AuthorTrie.Suggestion::bookCount)
+                    .containsExactlyElementsOf(bruteForce.stream().map(AuthorTrie.Suggestion::bookCount).toList());
+        }
+        assertThat(randomTrie.size()).isEqualTo(expected.size());
+    }
+
+    private static String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            name.append((char) ('a' + random.nextInt(3)));
+        }
+        return name.toString();
+    }
+
+    private static List<String> names(List<AuthorTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(AuthorTrie.Suggestion::name).toList();
+    }
+}
@@ -0,0 +1,117 @@
+package com.librairie.catalogue.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvertedIndexTest {
+    private static final Set<InvertedIndex.Field> ALL_FIELDS = EnumSet.allOf(InvertedIndex.Field.class);
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex(2.0);
+        index.put("1", "Le Petit Prince", "Un aviateur rencontre un petit prince venu d'une autre planète.");
+        index.put("2", "Vol de nuit", "Un pilote de l'aéropostale et le petit matin.");
+        index.put("3", "Terre des hommes", "Souvenirs d'aviateur, du désert et des hommes.");
+    }
+
+    @Test
+    void shouldMatchEveryTermOfTheQuery() {
+        assertThat(isbns(index.search("petit prince", ALL_FIELDS, 0, 10))).containsExactly("1");
+        assertThat(isbns(index.search("petit licorne", ALL_FIELDS, 0, 10))).isEmpty();
+    }
+
+    @Test
+    void shouldRankTitleMatchesFirst() {
+        assertThat(isbns(index.search("petit", ALL_FIELDS, 0, 10))).containsExactly("1", "2");
+        assertThat(isbns(index.search("aviateur", ALL_FIELDS, 0, 10))).hasSize(2);
+    }
+
+    @Test
+    void shouldRestrictSearchToFields() {
+        assertThat(isbns(index.search("petit", EnumSet.of(InvertedIndex.Field.TITLE), 0, 10))).containsExactly("1");
+        assertThat(isbns(index.search("AVIATEUR", EnumSet.of(InvertedIndex.Field.TITLE), 0, 10))).isEmpty();
+    }
+
+    @Test
+    void shouldPageThroughResults() {
+        assertThat(isbns(index.search("petit", ALL_FIELDS, 0, 1))).containsExactly("1");
+        assertThat(isbns(index.search("petit", ALL_FIELDS, 1, 1))).containsExactly("2");
+        assertThat(isbns(index.search("petit", ALL_FIELDS, 2, 1))).isEmpty();
+    }
+
+    @Test
+    void shouldReplaceAndRemoveBooks() {
+        index.put("2", "Courrier sud", "Un pilote et une femme.");
+        index.remove("3");
+
+        assertThat(isbns(index.search("petit", ALL_FIELDS, 0, 10))).containsExactly("1");
+        assertThat(isbns(index.search("courrier", ALL_FIELDS, 0, 10))).containsExactly("2");
+        assertThat(isbns(index.search("hommes", ALL_FIELDS, 0, 10))).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.deletedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSearchTitlesContainingTheText() {
+        assertThat(isbns(index.searchTitle("pet", 0, 10))).containsExactly("1");
+        assertThat(isbns(index.searchTitle("le ", 0, 10))).containsExactly("1");
+        assertThat(isbns(index.searchTitle("L DE N", 0, 10))).containsExactly("2");
+        assertThat(isbns(index.searchTitle("rre des hom", 0, 10))).containsExactly("3");
+        assertThat(isbns(index.searchTitle("aviateur", 0, 10))).isEmpty();
+        assertThat(isbns(index.searchTitle("petit  prince", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void shouldCheckTitlesHoldingEveryTrigram() {
+        index.put("4", "Abcxbcd", null);
+
+        assertThat(isbns(index.searchTitle("abcd", 0, 10))).isEmpty();
+        assertThat(isbns(index.searchTitle("bcxb", 0, 10))).containsExactly("4");
+    }
+
+    @Test
+    void shouldMatchAccentsOfTitlesAsWritten() {
+        index.put("4", "L'Étranger", null);
+
+        assertThat(isbns(index.searchTitle("étr", 0, 10))).containsExactly("4");
+        assertThat(isbns(index.searchTitle("l'é", 0, 10))).containsExactly("4");
+        assertThatThrownBy(() -> index.searchTitle("l'", 0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(isbns(index.searchTitle("etr", 0, 10))).isEmpty();
+    }
+
+    @Test
+    void shouldRankTitlesHoldingWholeWordsFirst() {
+        index.put("4", "Petits contes", null);
+        index.put("5", "Le petit chose", null);
+        index.remove("1");
+
+        assertThat(isbns(index.searchTitle("petit", 0, 10))).containsExactly("5", "4");
+        assertThat(isbns(index.searchTitle("petit", 1, 1))).containsExactly("4");
+    }
+
+    @Test
+    void shouldIntersectLongPostingsLists() {
+        InvertedIndex large = new InvertedIndex(2.0);
+        for (int i = 0; i < 10_000; i++) {
+            large.put(String.valueOf(i), "common " + (i % 3 == 0 ? "three" : "") + (i % 7 == 0 ? " seven" : ""), null);
+        }
+
+        List<InvertedIndex.Hit> hits = large.search("three seven common", ALL_FIELDS, 0, 10_000);
+
+        assertThat(hits).hasSize(477);
+        assertThat(hits).allSatisfy(hit -> assertThat(Integer.parseInt(hit.isbn()) % 21).isZero());
+    }
+
+    private static List<String> isbns(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::isbn).toList();
+    }
+}
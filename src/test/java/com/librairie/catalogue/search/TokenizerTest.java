@@ -0,0 +1,24 @@
+package com.librairie.catalogue.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTest {
+
+    @Test
+    void shouldNormalizeCaseAndAccents() {
+        assertThat(Tokenizer.tokenize("L'Étranger, ÉTÉ 1942!")).containsExactly("etranger", "ete", "1942");
+    }
+
+    @Test
+    void shouldDropStopWords() {
+        assertThat(Tokenizer.tokenize("Le Petit Prince et the Little Prince")).containsExactly("petit", "prince", "little", "prince");
+    }
+
+    @Test
+    void shouldReturnNoTokenForEmptyText() {
+        assertThat(Tokenizer.tokenize(null)).isEmpty();
+        assertThat(Tokenizer.tokenize(" - ")).isEmpty();
+    }
+}
@@ -1,19 +1,39 @@
 package com.librairie.catalogue.service;
 
+import com.librairie.catalogue.cache.AuthorIdCache;
+import com.librairie.catalogue.config.AuthorCacheProperties;
+import com.librairie.catalogue.config.AuthorSuggestProperties;
+import com.librairie.catalogue.event.AuthorChangedEvent;
 import com.librairie.catalogue.exception.ResourceNotFoundException;
 import com.librairie.catalogue.mapper.AuthorMapper;
 import com.librairie.catalogue.model.Author;
 import com.librairie.catalogue.model.dto.AuthorDTO;
+import com.librairie.catalogue.model.dto.AuthorSuggestionDTO;
 import com.librairie.catalogue.repository.AuthorRepository;
+import com.librairie.catalogue.repository.AuthorSuggestionView;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.search.AuthorSuggestIndex;
+import com.librairie.catalogue.search.AuthorTrie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -25,10 +45,20 @@ class AuthorServiceTest {
     @Mock
     private AuthorRepository authorRepository;
 
+    @Mock
+    private BookRepository bookRepository;
+
     @Mock
     private AuthorMapper authorMapper;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AuthorSuggestIndex authorSuggestIndex;
+
+    private AuthorIdCache authorIdCache;
+
     private AuthorService authorService;
 
     private Author author;
@@ -36,6 +66,10 @@ class AuthorServiceTest {
 
     @BeforeEach
     void setUp() {
+        authorIdCache = new AuthorIdCache(new AuthorCacheProperties(), new SimpleMeterRegistry());
+        authorService = new AuthorService(authorRepository, bookRepository, authorMapper, authorIdCache, eventPublisher,
+                authorSuggestIndex, new AuthorSuggestProperties());
+
         author = Author.builder()
                 .id(1L)
                 .name("Antoine de Saint-Exupéry")
@@ -49,8 +83,7 @@ class AuthorServiceTest {
     @Test
     void shouldReturnAllAuthors() {
         // Arrange
-        when(authorRepository.findAll()).thenReturn(List.of(author));
-        when(authorMapper.authorsToAuthorDTOs(List.of(author))).thenReturn(List.of(authorDTO));
+        when(authorRepository.findAllAsDTOs()).thenReturn(List.of(authorDTO));
 
         // Act
         List<AuthorDTO> authors = authorService.getAllAuthors();
@@ -89,7 +122,7 @@ class AuthorServiceTest {
         // Arrange
         when(authorRepository.findByNameIgnoreCase("Antoine de Saint-Exupéry"))
                 .thenReturn(Optional.of(author));
-        when(authorMapper.authorToAuthorDTO(author)).thenReturn(authorDTO);
+        when(authorMapper.authorToAuthorDTO(any(Author.class))).thenReturn(authorDTO);
 
         // Act
         AuthorDTO result = authorService.createAuthor(authorDTO);
@@ -119,16 +152,179 @@ class AuthorServiceTest {
         // Arrange
         when(authorRepository.findByNameIgnoreCase("Albert Camus"))
                 .thenReturn(Optional.empty());
-        when(authorRepository.save(any(Author.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(authorRepository.saveAndFlush(any(Author.class)))
+                .thenAnswer(invocation -> withId(invocation.getArgument(0), 2L));
 
         // Act
         Author result = authorService.findOrCreateAuthor("Albert Camus");
 
         // Assert
         assertThat(result).isNotNull();
+        assertThat(result.getId()).isEqualTo(2L);
         assertThat(result.getName()).isEqualTo("Albert Camus");
-        verify(authorRepository).save(any(Author.class));
+        verify(authorRepository).saveAndFlush(any(Author.class));
+        verify(eventPublisher).publishEvent(AuthorChangedEvent.created(2L, "Albert Camus"));
+    }
+
+    @Test
+    void shouldResolveKnownAuthorFromCacheIgnoringCase() {
+        // Arrange
+        when(authorRepository.findByNameIgnoreCase("Antoine de Saint-Exupéry"))
+                .thenReturn(Optional.of(author));
+
+        // Act
+        authorService.findOrCreateAuthor("Antoine de Saint-Exupéry");
+        Author result = authorService.findOrCreateAuthor("ANTOINE DE SAINT-EXUPÉRY");
+
+        // Assert
+        assertThat(result.getId()).isEqualTo(1L);
+        verify(authorRepository, times(1)).findByNameIgnoreCase(any());
+    }
+
+    @Test
+    void shouldInsertAuthorOnceUnderConcurrentLookups() throws Exception {
+        // Arrange
+        CountDownLatch start = new CountDownLatch(1);
+        when(authorRepository.findByNameIgnoreCase(any())).thenReturn(Optional.empty());
+        when(authorRepository.saveAndFlush(any(Author.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return withId(invocation.getArgument(0), 2L);
+        });
+
+        // Act
+        List<Future<Author>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                String name = i % 2 == 0 ? "Albert Camus" : "albert camus";
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return authorService.findOrCreateAuthor(name);
+                }));
+            }
+            start.countDown();
+        }
+
+        // Assert
+        for (Future<Author> result : results) {
+            assertThat(result.get().getId()).isEqualTo(2L);
+        }
+        verify(authorRepository, times(1)).saveAndFlush(any(Author.class));
+    }
+
+    @Test
+    void shouldShareInsertedAuthorOnlyOnceCommitted() throws Exception {
+        // Arrange
+        when(authorRepository.findByNameIgnoreCase("Albert Camus")).thenReturn(Optional.empty());
+        when(authorRepository.saveAndFlush(any(Author.class))).thenAnswer(invocation -> withId(invocation.getArgument(0), 2L));
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // Act
+                authorService.findOrCreateAuthor("Albert Camus");
+                Author again = authorService.findOrCreateAuthor("ALBERT CAMUS");
+                Future<Author> other = executor.submit(() -> authorService.findOrCreateAuthor("Albert Camus"));
+                Thread.sleep(100);
+
+                // Assert
+                assertThat(again.getId()).isEqualTo(2L);
+                assertThat(other).isNotDone();
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                assertThat(other.get().getId()).isEqualTo(2L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+        verify(authorRepository, times(1)).saveAndFlush(any(Author.class));
+    }
+
+    @Test
+    void shouldLoadAuthorAgainWhenItsInsertIsRolledBack() throws Exception {
+        // Arrange
+        when(authorRepository.findByNameIgnoreCase("Albert Camus")).thenReturn(Optional.empty());
+        when(authorRepository.saveAndFlush(any(Author.class))).thenAnswer(invocation -> withId(invocation.getArgument(0), 2L));
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // Act
+                authorService.findOrCreateAuthor("Albert Camus");
+                Future<Author> other = executor.submit(() -> authorService.findOrCreateAuthor("Albert Camus"));
+                Thread.sleep(100);
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+                // Assert
+                assertThat(other.get().getId()).isEqualTo(2L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+        verify(authorRepository, times(2)).saveAndFlush(any(Author.class));
+    }
+
+    @Test
+    void shouldResolveAuthorsWithOneQueryAndOneBatchInsert() {
+        // Arrange
+        when(authorRepository.findByLowerCaseNameIn(anyCollection())).thenReturn(List.of(author));
+        when(authorRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Author> authors = invocation.getArgument(0);
+            for (int i = 0; i < authors.size(); i++) {
+                withId(authors.get(i), 10L + i);
+            }
+            return authors;
+        });
+
+        // Act
+        Map<String, Author> result = authorService.findOrCreateAuthors(
+                List.of("Antoine de Saint-Exupéry", "ANTOINE DE SAINT-EXUPÉRY", "Albert Camus", "Victor Hugo"));
+
+        // Assert
+        assertThat(result).hasSize(4);
+        assertThat(result.get("ANTOINE DE SAINT-EXUPÉRY")).isSameAs(result.get("Antoine de Saint-Exupéry"));
+        assertThat(result.get("Antoine de Saint-Exupéry").getId()).isEqualTo(1L);
+        assertThat(result.get("Albert Camus").getId()).isNotNull();
+        assertThat(result.get("Victor Hugo").getId()).isNotNull();
+        verify(authorRepository).findByLowerCaseNameIn(argThat(names -> names.size() == 3
+                && names.contains("antoine de saint-exupéry")));
+        ArgumentCaptor<List<Author>> inserted = ArgumentCaptor.captor();
+        verify(authorRepository).saveAllAndFlush(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Author::getName).containsExactlyInAnyOrder("Albert Camus", "Victor Hugo");
+        verify(authorRepository, never()).findByNameIgnoreCase(any());
+        verify(eventPublisher, times(2)).publishEvent(any(AuthorChangedEvent.class));
+    }
+
+    @Test
+    void shouldOnlyLoadUncachedAuthorsInBatch() {
+        // Arrange
+        when(authorRepository.findByNameIgnoreCase("Antoine de Saint-Exupéry")).thenReturn(Optional.of(author));
+        authorService.findOrCreateAuthor("Antoine de Saint-Exupéry");
+        Author camus = Author.builder().id(2L).name("Albert Camus").build();
+        when(authorRepository.findByLowerCaseNameIn(List.of("albert camus"))).thenReturn(List.of(camus));
+
+        // Act
+        Map<String, Author> result = authorService.findOrCreateAuthors(List.of("Antoine de Saint-Exupéry", "Albert Camus"));
+
+        // Assert
+        assertThat(result.get("Antoine de Saint-Exupéry").getId()).isEqualTo(1L);
+        assertThat(result.get("Albert Camus").getId()).isEqualTo(2L);
+        verify(authorRepository, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void shouldInvalidateCacheWhenAuthorChanges() {
+        // Arrange
+        when(authorRepository.findByNameIgnoreCase("Antoine de Saint-Exupéry"))
+                .thenReturn(Optional.of(author));
+        authorService.findOrCreateAuthor("Antoine de Saint-Exupéry");
+
+        // Act
+        authorIdCache.onAuthorChanged(AuthorChangedEvent.updated(1L, "Antoine de Saint-Exupéry", "Saint-Exupéry"));
+        authorService.findOrCreateAuthor("Antoine de Saint-Exupéry");
+
+        // Assert
+        verify(authorRepository, times(2)).findByNameIgnoreCase("Antoine de Saint-Exupéry");
     }
 
     @Test
@@ -153,6 +349,7 @@ class AuthorServiceTest {
         assertThat(result.getName()).isEqualTo(updatedAuthor.getName());
         verify(authorRepository, atMostOnce()).findById(1L);
         verify(authorRepository, atMostOnce()).save(updatedAuthor);
+        verify(eventPublisher).publishEvent(AuthorChangedEvent.updated(1L, "Antoine de Saint-Exupéry", "updated"));
     }
 
     @Test
@@ -168,11 +365,15 @@ class AuthorServiceTest {
 
     @Test
     void shouldDeleteAuthor() {
+        // Arrange
+        when(authorRepository.findById(1L)).thenReturn(Optional.of(author));
+
         // Act
         authorService.deleteAuthor(1L);
 
         // Assert
-        verify(authorRepository, atMostOnce()).deleteById(1L);
+        verify(authorRepository).delete(author);
+        verify(eventPublisher).publishEvent(AuthorChangedEvent.deleted(1L, "Antoine de Saint-Exupéry"));
     }
 
     @Test
@@ -183,4 +384,46 @@ class AuthorServiceTest {
         // Assert
         verify(authorRepository, atMostOnce()).deleteById(999L);
     }
+
+    @Test
+    void shouldSuggestAuthorsFromIndex() {
+        // Arrange
+        when(authorSuggestIndex.isReady()).thenReturn(true);
+        when(authorSuggestIndex.suggest("ant", 10)).thenReturn(List.of(
+                new AuthorTrie.Suggestion(1L, "Antoine de Saint-Exupéry", 3)));
+
+        // Act
+        List<AuthorSuggestionDTO> suggestions = authorService.suggestAuthors("ant", 50);
+
+        // Assert
+        assertThat(suggestions).containsExactly(new AuthorSuggestionDTO(1L, "Antoine de Saint-Exupéry", 3));
+        verifyNoInteractions(authorRepository);
+    }
+
+    @Test
+    void shouldSuggestAuthorsFromDatabaseWhileIndexIsNotReady() {
+        // Arrange
+        AuthorSuggestionView view = mock(AuthorSuggestionView.class);
+        when(view.getId()).thenReturn(1L);
+        when(view.getName()).thenReturn("Antoine de Saint-Exupéry");
+        when(view.getBookCount()).thenReturn(3L);
+        when(authorRepository.findSuggestions("ant", Limit.of(5))).thenReturn(List.of(view));
+
+        // Act
+        List<AuthorSuggestionDTO> suggestions = authorService.suggestAuthors(" ant ", 5);
+
+        // Assert
+        assertThat(suggestions).containsExactly(new AuthorSuggestionDTO(1L, "Antoine de Saint-Exupéry", 3));
+    }
+
+    @Test
+    void shouldNotSuggestAuthorsForBlankPrefix() {
+        assertThat(authorService.suggestAuthors(" ", null)).isEmpty();
+        verifyNoInteractions(authorRepository, authorSuggestIndex);
+    }
+
+    private static Author withId(Author author, Long id) {
+        author.setId(id);
+        return author;
+    }
 }
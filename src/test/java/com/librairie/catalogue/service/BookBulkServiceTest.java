@@ -0,0 +1,183 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.BulkProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.mapper.BookMapperImpl;
+import com.librairie.catalogue.model.Author;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BulkItemResultDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookBulkServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private AuthorService authorService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+
+    private BulkProperties bulkProperties;
+
+    private BookBulkService bookBulkService;
+
+    @BeforeEach
+    void setUp() {
+        bulkProperties = new BulkProperties();
+        bookBulkService = new BookBulkService(bookRepository, authorService, bookMapper, entityManager,
+                new TransactionTemplate(transactionManager), bulkProperties, eventPublisher,
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void shouldCreateNewBooksAndUpdateExistingOnes() {
+        // Arrange
+        Book existing = Book.builder().id(1L).isbn("1111111111").title("Old title").build();
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of(existing));
+        Author author = Author.builder().id(1L).name("Victor Hugo").build();
+        when(authorService.findOrCreateAuthors(Set.of("Victor Hugo", "victor hugo")))
+                .thenReturn(Map.of("Victor Hugo", author, "victor hugo", author));
+
+        BookDTO update = BookDTO.builder().isbn("1111111111").title("New title").authors(List.of("Victor Hugo")).build();
+        BookDTO creation = BookDTO.builder().isbn("2222222222").title("Created").authors(List.of("victor hugo")).build();
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(List.of(update, creation));
+
+        // Assert
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+                .containsExactly(BulkItemResultDTO.Status.UPDATED, BulkItemResultDTO.Status.CREATED);
+        assertThat(existing.getTitle()).isEqualTo("New title");
+        assertThat(existing.getAuthors()).containsExactly(author);
+        verify(authorService, times(1)).findOrCreateAuthors(any());
+        verify(entityManager).persist(argThat(book -> ((Book) book).getIsbn().equals("2222222222")));
+        verify(entityManager).flush();
+        verify(entityManager).clear();
+        verify(eventPublisher).publishEvent(ArgumentMatchers.<Object>argThat(event -> event instanceof BookChangedEvent changed
+                && changed.type() == BookChangedEvent.ChangeType.CREATED && changed.isbn().equals("2222222222")));
+    }
+
+    @Test
+    void shouldReportInvalidItemsWithoutFailingTheChunk() {
+        // Arrange
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of());
+        BookDTO invalid = BookDTO.builder().isbn("123").build();
+        BookDTO valid = BookDTO.builder().isbn("2222222222").build();
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(List.of(invalid, valid));
+
+        // Assert
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+                .containsExactly(BulkItemResultDTO.Status.FAILED, BulkItemResultDTO.Status.CREATED);
+        assertThat(results.getFirst().getMessage()).isNotBlank();
+    }
+
+    @Test
+    void shouldWriteOneTransactionPerChunk() {
+        // Arrange
+        bulkProperties.setChunkSize(2);
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of());
+        List<BookDTO> books = List.of(
+                BookDTO.builder().isbn("1111111111").build(),
+                BookDTO.builder().isbn("2222222222").build(),
+                BookDTO.builder().isbn("3333333333").build());
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(books);
+
+        // Assert
+        assertThat(results).hasSize(3);
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(entityManager, times(2)).flush();
+    }
+
+    @Test
+    void shouldReportConstraintViolationsWithoutFailingTheChunk() {
+        // Arrange
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of());
+        BookDTO invalid = BookDTO.builder().isbn("1111111111").summary("a".repeat(5001)).build();
+        BookDTO valid = BookDTO.builder().isbn("2222222222").build();
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(List.of(invalid, valid));
+
+        // Assert
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+                .containsExactly(BulkItemResultDTO.Status.FAILED, BulkItemResultDTO.Status.CREATED);
+        assertThat(results.getFirst().getMessage()).isEqualTo("Summary should not exceed 5000 characters");
+        verify(bookRepository).findByIsbnIn(Set.of("2222222222"));
+    }
+
+    @Test
+    void shouldWriteOnlyLastItemOfSameIsbn() {
+        // Arrange
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of());
+        BookDTO first = BookDTO.builder().isbn("1111111111").title("First").build();
+        BookDTO last = BookDTO.builder().isbn("1111111111").title("Last").build();
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(List.of(first, last));
+
+        // Assert
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+                .containsExactly(BulkItemResultDTO.Status.FAILED, BulkItemResultDTO.Status.CREATED);
+        verify(entityManager).persist(argThat(book -> ((Book) book).getTitle().equals("Last")));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void shouldWriteItemsOneByOneWhenChunkFails() {
+        // Arrange
+        when(bookRepository.findByIsbnIn(anyCollection())).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doThrow(new DataIntegrityViolationException("duplicate key"))
+                .doNothing()
+                .when(entityManager).flush();
+
+        // Act
+        List<BulkItemResultDTO> results = bookBulkService.upsertBooks(List.of(
+                BookDTO.builder().isbn("1111111111").build(),
+                BookDTO.builder().isbn("2222222222").build()));
+
+        // Assert
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+                .containsExactly(BulkItemResultDTO.Status.FAILED, BulkItemResultDTO.Status.CREATED);
+        assertThat(results.getFirst().getMessage()).contains("duplicate key");
+        verify(transactionManager, times(2)).rollback(any());
+    }
+}
@@ -0,0 +1,107 @@
+package com.librairie.catalogue.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.librairie.catalogue.mapper.BookMapper;
+import com.librairie.catalogue.model.Book;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookExportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    private BookExportService bookExportService;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.getCacheMode()).thenReturn(CacheMode.NORMAL);
+        bookExportService = new BookExportService(bookRepository, bookMapper, entityManager,
+                new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void shouldWriteOneJsonDocumentPerLine() throws Exception {
+        // Arrange
+        Book book1 = Book.builder().id(1L).isbn("1111111111").build();
+        Book book2 = Book.builder().id(2L).isbn("2222222222").build();
+        when(bookRepository.streamAll()).thenReturn(Stream.of(book1, book2));
+        when(bookMapper.bookToBookDTO(book1)).thenReturn(BookDTO.builder().isbn("1111111111").title("Premier")
+                .authors(List.of("Auteur")).publicationDate(LocalDate.of(2001, 1, 1)).build());
+        when(bookMapper.bookToBookDTO(book2)).thenReturn(BookDTO.builder().isbn("2222222222").title("Second").build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long count = bookExportService.exportBooks(outputStream);
+
+        // Assert
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"isbn\":\"1111111111\"", "\"title\":\"Premier\"", "\"publicationDate\":[2001,1,1]");
+        assertThat(lines[1]).contains("\"isbn\":\"2222222222\"", "\"title\":\"Second\"");
+        verify(entityManager).clear();
+        verify(session).setCacheMode(CacheMode.IGNORE);
+        verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Test
+    void shouldWriteNothingForEmptyCatalogue() throws Exception {
+        // Arrange
+        when(bookRepository.streamAll()).thenReturn(Stream.empty());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long count = bookExportService.exportBooks(outputStream);
+
+        // Assert
+        assertThat(count).isZero();
+        assertThat(outputStream.size()).isZero();
+    }
+
+    @Test
+    void shouldClearPersistenceContextOncePerFetchedChunk() throws Exception {
+        // Arrange
+        int bookCount = BookRepository.STREAM_FETCH_SIZE * 2 + 1;
+        when(bookRepository.streamAll()).thenReturn(LongStream.rangeClosed(1, bookCount)
+                .mapToObj(id -> Book.builder().id(id).build()));
+        when(bookMapper.bookToBookDTO(any(Book.class))).thenReturn(BookDTO.builder().isbn("1111111111").build());
+
+        // Act
+        long count = bookExportService.exportBooks(new ByteArrayOutputStream());
+
+        // Assert
+        assertThat(count).isEqualTo(bookCount);
+        verify(entityManager, times(3)).clear();
+    }
+}
@@ -0,0 +1,126 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.BookSearchProperties;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookSearchCriteria;
+import com.librairie.catalogue.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookSearchServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookService bookService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final BookSearchProperties properties = new BookSearchProperties();
+
+    private BookSearchService bookSearchService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setSubQueryLimit(3);
+        bookSearchService = new BookSearchService(bookRepository, bookService, new PaginationProperties(), properties,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookSearchService.shutdown();
+    }
+
+    @Test
+    void shouldRunCriteriaConcurrently() {
+        // Every criterion waits for the other two, the search only ends if they all run at once
+        CountDownLatch started = new CountDownLatch(3);
+        when(bookRepository.findIdsByTitleContaining(eq(0L), eq("prince"), any())).thenAnswer(invocation -> awaitOthers(started, List.of(1L, 2L, 4L)));
+        when(bookRepository.findIdsByAuthorContaining(eq(0L), eq("saint"), any())).thenAnswer(invocation -> awaitOthers(started, List.of(2L, 4L)));
+        when(bookRepository.findIdsByPageCountBetween(eq(0L), eq(50), eq(Integer.MAX_VALUE), any())).thenAnswer(invocation -> awaitOthers(started, List.of(4L)));
+        when(bookService.getBooksByIds(List.of(4L), null)).thenReturn(List.of(BookDTO.builder().isbn("4").build()));
+
+        BookPageDTO page = bookSearchService.search(BookSearchCriteria.builder()
+                .title("prince")
+                .author("saint")
+                .minPages(50)
+                .build(), null, null);
+
+        assertThat(page.getBooks()).extracting(BookDTO::getIsbn).containsExactly("4");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldMergeCriteriaMatchingAny() {
+        when(bookRepository.findIdsByTitleContaining(anyLong(), any(), any())).thenReturn(List.of(1L, 5L));
+        when(bookRepository.findIdsByAuthorContaining(anyLong(), any(), any())).thenReturn(List.of(2L, 5L));
+        when(bookService.getBooksByIds(List.of(1L, 2L), null)).thenReturn(List.of(BookDTO.builder().isbn("1").build(),
+                BookDTO.builder().isbn("2").build()));
+
+        BookPageDTO page = bookSearchService.search(BookSearchCriteria.builder()
+                .title("prince")
+                .author("saint")
+                .match(BookSearchCriteria.Match.ANY)
+                .build(), null, 2);
+
+        assertThat(page.getBooks()).extracting(BookDTO::getIsbn).containsExactly("1", "2");
+        assertThat(ContinuationToken.decode(page.getNextCursor())).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldStopPageAtLastIdOfTruncatedCriterion() {
+        // The date criterion is cut after id 6 (sub-query-limit of 3), books past it are unknown
+        when(bookRepository.findIdsByPublicationDateBetween(eq(0L), any(), any(), eq(Limit.of(3)))).thenReturn(List.of(2L, 4L, 6L));
+        when(bookRepository.findIdsByPageCountBetween(eq(0L), anyInt(), anyInt(), eq(Limit.of(3)))).thenReturn(List.of(6L, 8L));
+        when(bookService.getBooksByIds(List.of(6L), null)).thenReturn(List.of(BookDTO.builder().isbn("6").build()));
+
+        BookPageDTO page = bookSearchService.search(BookSearchCriteria.builder()
+                .publishedFrom(LocalDate.of(2000, 1, 1))
+                .maxPages(300)
+                .build(), null, 2);
+
+        assertThat(page.getBooks()).extracting(BookDTO::getIsbn).containsExactly("6");
+        assertThat(ContinuationToken.decode(page.getNextCursor())).isEqualTo(6L);
+    }
+
+    @Test
+    void shouldRejectEmptyRanges() {
+        BookSearchCriteria criteria = BookSearchCriteria.builder().minPages(300).maxPages(100).build();
+
+        assertThrows(BadRequestException.class, () -> bookSearchService.search(criteria, null, null));
+        verifyNoInteractions(bookRepository);
+    }
+
+    private static List<Long> awaitOthers(CountDownLatch started, List<Long> ids) throws InterruptedException {
+        started.countDown();
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        return ids;
+    }
+}
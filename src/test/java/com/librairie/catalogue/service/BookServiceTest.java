@@ -1,22 +1,45 @@
 package com.librairie.catalogue.service;
 
+import com.librairie.catalogue.cache.BookCache;
+import com.librairie.catalogue.cache.IsbnFilter;
+import com.librairie.catalogue.config.BookCacheProperties;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.event.BookChangedEvent;
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.exception.PreconditionFailedException;
 import com.librairie.catalogue.exception.ResourceNotFoundException;
 import com.librairie.catalogue.mapper.BookMapper;
 import com.librairie.catalogue.model.Author;
 import com.librairie.catalogue.model.Book;
 import com.librairie.catalogue.model.dto.BookDTO;
+import com.librairie.catalogue.model.dto.BookField;
+import com.librairie.catalogue.model.dto.BookPageDTO;
+import com.librairie.catalogue.model.dto.BookPatchDTO;
+import com.librairie.catalogue.repository.BookIdView;
 import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.repository.BookVersionView;
+import com.librairie.catalogue.search.BookSearchIndex;
+import com.librairie.catalogue.search.InvertedIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,6 +60,27 @@ class BookServiceTest {
     @Mock
     private AuthorService authorService;
 
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties();
+
+    @Mock
+    private IsbnFilter isbnFilter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private BookCache bookCache = new BookCache(new BookCacheProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookJsonEncoder bookJsonEncoder;
+
     private Book book;
     private BookDTO bookDTO;
     private BookDTO bookDTOWithEmptyAuthorList;
@@ -56,6 +100,7 @@ class BookServiceTest {
         authorList.add(author.getName());
 
         bookDTO = BookDTO.builder()
+                .id(1L)
                 .isbn("9999999999999")
                 .title("Le Petit Prince")
                 .authors(authorList)
@@ -75,37 +120,102 @@ class BookServiceTest {
     @Test
     void shouldReturnListOfBooks() {
         // Arrange
-        when(bookRepository.findAll()).thenReturn(List.of(book));
-        when(bookMapper.booksToBookDTOs(List.of(book))).thenReturn(List.of(bookDTO));
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(51))).thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(null, null);
+
+        // Assert
+        assertThat(result.getBooks()).hasSize(1);
+        assertThat(result.getBooks().getFirst().getTitle()).isEqualTo("Le Petit Prince");
+        assertThat(result.getBooks().getFirst().getSummary()).isEqualTo("Un livre sur l'aviation, sur les moutons et les princes.");
+        assertThat(result.getBooks().getFirst().getPageCount()).isEqualTo(100);
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldReturnOnlyRequestedFieldsWithoutMapping() {
+        // Arrange
+        Set<BookField> fields = EnumSet.of(BookField.ISBN, BookField.TITLE);
+        BookDTO narrowed = BookDTO.builder().id(1L).isbn(bookDTO.getIsbn()).title(bookDTO.getTitle()).build();
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(51))).thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), fields)).thenReturn(List.of(narrowed));
 
         // Act
-        List<BookDTO> result = bookService.getAllBooks();
+        BookPageDTO result = bookService.getAllBooks(null, null, fields);
 
         // Assert
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst().getTitle()).isEqualTo("Le Petit Prince");
-        assertThat(result.getFirst().getSummary()).isEqualTo("Un livre sur l'aviation, sur les moutons et les princes.");
-        assertThat(result.getFirst().getPageCount()).isEqualTo(100);
+        assertThat(result.getBooks()).containsExactly(narrowed);
+        verify(bookRepository, never()).findFieldsByIdIn(any(), eq(BookField.ALL));
+        verifyNoInteractions(bookMapper);
     }
 
     @Test
     void shouldReturnEmptyListWhenNoBooksExist() {
         // Arrange
-        when(bookRepository.findAll()).thenReturn(Collections.emptyList());
-        when(bookMapper.booksToBookDTOs(Collections.emptyList())).thenReturn(Collections.emptyList());
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(51))).thenReturn(Collections.emptyList());
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(null, null);
+
+        // Assert
+        assertThat(result.getBooks()).isEmpty();
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreBooksExist() {
+        // Arrange
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(id(1L), id(2L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(null, 1);
+
+        // Assert
+        assertThat(result.getBooks()).hasSize(1);
+        assertThat(result.getNextCursor()).isEqualTo(ContinuationToken.encode(1L));
+    }
+
+    @Test
+    void shouldResumeFromCursor() {
+        // Arrange
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(1L, Limit.of(11))).thenReturn(Collections.emptyList());
+
+        // Act
+        BookPageDTO result = bookService.getAllBooks(ContinuationToken.encode(1L), 10);
+
+        // Assert
+        assertThat(result.getBooks()).isEmpty();
+        verify(bookRepository).findIdsByIdGreaterThanOrderByIdAsc(1L, Limit.of(11));
+    }
+
+    @Test
+    void shouldClampPageSize() {
+        // Arrange
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenReturn(Collections.emptyList());
 
         // Act
-        List<BookDTO> result = bookService.getAllBooks();
+        bookService.getAllBooks(null, 100_000);
+        bookService.getAllBooks(null, 0);
 
         // Assert
-        assertThat(result).isEmpty();
+        verify(bookRepository).findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(501));
+        verify(bookRepository).findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(2));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> bookService.getAllBooks("not a cursor", null));
+        verifyNoInteractions(bookRepository);
     }
 
     @Test
     void shouldReturnBookById() {
         // Arrange
-        when(bookRepository.findByIsbn(book.getIsbn())).thenReturn(Optional.of(book));
-        when(bookMapper.bookToBookDTO(book)).thenReturn(bookDTO);
+        when(bookRepository.findDTOByIsbn(book.getIsbn())).thenReturn(Optional.of(bookDTO));
 
         // Act
         BookDTO result = bookService.getBookByIsbn(book.getIsbn());
@@ -117,85 +227,204 @@ class BookServiceTest {
         assertThat(result.getPageCount()).isEqualTo(100);
     }
 
+    @Test
+    void shouldServeBookFromCacheOnceLoaded() {
+        // Arrange
+        when(bookRepository.findDTOByIsbn(book.getIsbn())).thenReturn(Optional.of(bookDTO));
+
+        // Act
+        bookService.getBookByIsbn(book.getIsbn());
+        BookDTO result = bookService.getBookByIsbn(book.getIsbn());
+
+        // Assert
+        assertThat(result).isEqualTo(bookDTO).isNotSameAs(bookDTO);
+        verify(bookRepository, times(1)).findDTOByIsbn(book.getIsbn());
+    }
+
+    @Test
+    void shouldEncodeCachedBookOnce() {
+        // Arrange
+        BookCache.EncodedBook encoded = new BookCache.EncodedBook("\"1-0\"", new byte[]{'{', '}'}, null);
+        when(bookRepository.findDTOByIsbn(book.getIsbn())).thenReturn(Optional.of(bookDTO));
+        when(bookJsonEncoder.encode(bookDTO)).thenReturn(encoded);
+
+        // Act
+        assertThat(bookService.findCachedEncodedBook(book.getIsbn())).isNull();
+        bookService.getEncodedBook(book.getIsbn());
+        BookCache.EncodedBook result = bookService.getEncodedBook(book.getIsbn());
+
+        // Assert
+        assertThat(result).isSameAs(encoded);
+        assertThat(bookService.findCachedEncodedBook(book.getIsbn())).isSameAs(encoded);
+        verify(bookRepository, times(1)).findDTOByIsbn(book.getIsbn());
+        verify(bookJsonEncoder, times(1)).encode(any());
+    }
+
     @Test
     void shouldThrowResourceNotFoundExceptionWhenBookIdNotFound() {
         // Arrange
-        when(bookRepository.findByIsbn(book.getIsbn())).thenReturn(Optional.empty());
+        when(bookRepository.findDTOByIsbn(book.getIsbn())).thenReturn(Optional.empty());
 
         // Act & Assert
         String isbnToThrow = book.getIsbn();
         assertThrows(ResourceNotFoundException.class, () -> bookService.getBookByIsbn(isbnToThrow));
-        verify(bookRepository, times(1)).findByIsbn(book.getIsbn());
+        verify(bookRepository, times(1)).findDTOByIsbn(book.getIsbn());
     }
 
     @Test
     void shouldSearchBooksByTitle() {
         // Arrange
-        when(bookRepository.findByTitleContainingIgnoreCase("petit")).thenReturn(List.of(book));
-        when(bookMapper.booksToBookDTOs(List.of(book))).thenReturn(List.of(bookDTO));
+        when(bookRepository.findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(0L, "petit", Limit.of(51)))
+                .thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
 
         // Act
-        List<BookDTO> result = bookService.searchBooks("petit", null);
+        BookPageDTO result = bookService.searchBooks("petit", null, null, null);
 
         // Assert
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst().getTitle()).isEqualTo("Le Petit Prince");
+        assertThat(result.getBooks()).hasSize(1);
+        assertThat(result.getBooks().getFirst().getTitle()).isEqualTo("Le Petit Prince");
     }
 
     @Test
     void shouldReturnEmptyListWhenBookTitleDoesNotExist() {
         // Arrange
-        when(bookRepository.findByTitleContainingIgnoreCase("grand")).thenReturn(Collections.emptyList());
-        when(bookMapper.booksToBookDTOs(Collections.emptyList())).thenReturn(Collections.emptyList());
+        when(bookRepository.findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(0L, "grand", Limit.of(51)))
+                .thenReturn(Collections.emptyList());
 
         // Act
-        List<BookDTO> result = bookService.searchBooks("grand", null);
+        BookPageDTO result = bookService.searchBooks("grand", null, null, null);
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(result.getBooks()).isEmpty();
     }
 
     @Test
     void shouldReturnAllBooksWhenBlankOrNoCriteria() {
         // Arrange
-        when(bookRepository.findAll()).thenReturn(List.of(book));
-        when(bookMapper.booksToBookDTOs(List.of(book))).thenReturn(List.of(bookDTO));
+        when(bookRepository.findIdsByIdGreaterThanOrderByIdAsc(0L, Limit.of(51))).thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
+
+        // Act
+        BookPageDTO result1 = bookService.searchBooks("", null, null, null);
+        BookPageDTO result2 = bookService.searchBooks(null, "", null, null);
+        BookPageDTO result3 = bookService.searchBooks(null, null, null, null);
+
+        // Assert
+        assertThat(result1.getBooks()).hasSize(1);
+        assertThat(result2.getBooks()).hasSize(1);
+        assertThat(result3.getBooks()).hasSize(1);
+    }
+
+    @Test
+    void shouldRankTitleSearchWithIndexOnceReady() {
+        // Arrange
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.searchTitle("petit", 0, 2))
+                .thenReturn(List.of(new InvertedIndex.Hit("9999999999", 2.0), new InvertedIndex.Hit(book.getIsbn(), 1.0)));
+        when(bookRepository.findFieldsByIsbnIn(List.of("9999999999"), BookField.ALL)).thenReturn(List.of());
+
+        // Act
+        BookPageDTO result = bookService.searchBooks("petit", null, null, 1);
+
+        // Assert
+        assertThat(result.getNextCursor()).isEqualTo(ContinuationToken.encodeOffset(1));
+        verify(bookRepository, never()).findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldSearchBooksByTextInRankOrder() {
+        // Arrange
+        BookDTO other = BookDTO.builder().id(2L).isbn("9999999999").title("Le Petit Nicolas").build();
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.search("petit", EnumSet.allOf(InvertedIndex.Field.class), 50, 51))
+                .thenReturn(List.of(new InvertedIndex.Hit(book.getIsbn(), 2.0), new InvertedIndex.Hit(other.getIsbn(), 1.0)));
+        when(bookRepository.findFieldsByIsbnIn(List.of(book.getIsbn(), other.getIsbn()), BookField.ALL))
+                .thenReturn(List.of(other, bookDTO));
 
         // Act
-        List<BookDTO> result1 = bookService.searchBooks("", null);
-        List<BookDTO> result2 = bookService.searchBooks(null, "");
-        List<BookDTO> result3 = bookService.searchBooks(null, null);
+        BookPageDTO result = bookService.searchBooksByText("petit", ContinuationToken.encodeOffset(50), null);
 
         // Assert
-        assertThat(result1).hasSize(1);
-        assertThat(result2).hasSize(1);
-        assertThat(result3).hasSize(1);
+        assertThat(result.getBooks()).containsExactly(bookDTO, other);
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void shouldSearchBooksByTextInDatabaseUntilIndexIsReady() {
+        // Arrange
+        when(bookRepository.findIdsByText(0L, "petit", Limit.of(51))).thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
+
+        // Act
+        BookPageDTO result = bookService.searchBooksByText(" petit ", null, null);
+
+        // Assert
+        assertThat(result.getBooks()).hasSize(1);
+        verify(bookSearchIndex, never()).search(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldRejectDeepRankedPages() {
+        // Arrange
+        when(bookSearchIndex.isReady()).thenReturn(true);
+
+        // Act & Assert
+        String cursor = ContinuationToken.encodeOffset(BookService.MAX_RANKED_OFFSET + 1L);
+        assertThrows(BadRequestException.class, () -> bookService.searchBooksByText("petit", cursor, null));
+    }
+
+    @Test
+    void shouldRejectCursorOfTheOtherSearchPath() {
+        // Arrange
+        when(bookSearchIndex.isReady()).thenReturn(true, false);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> bookService.searchBooks("petit", null, ContinuationToken.encode(1L), null));
+        assertThrows(BadRequestException.class, () -> bookService.searchBooks("petit", null, ContinuationToken.encodeOffset(1L), null));
+    }
+
+    @Test
+    void shouldSearchShortTitlesInDatabase() {
+        // Arrange
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookRepository.findIdsByIdGreaterThanAndTitleContainingIgnoreCaseOrderByIdAsc(0L, "le", Limit.of(51)))
+                .thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
+
+        // Act
+        BookPageDTO result = bookService.searchBooks(" le ", null, null, null);
+
+        // Assert
+        assertThat(result.getBooks()).hasSize(1);
+        verify(bookSearchIndex, never()).searchTitle(any(), anyInt(), anyInt());
     }
 
     @Test
     void shouldSearchBooksByAuthor() {
         // Arrange
-        when(bookRepository.findByAuthorsNameContainingIgnoreCase("saint-ex")).thenReturn(List.of(book));
-        when(bookMapper.booksToBookDTOs(List.of(book))).thenReturn(List.of(bookDTO));
+        when(bookRepository.findDistinctIdsByIdGreaterThanAndAuthorsNameContainingIgnoreCaseOrderByIdAsc(0L, "saint-ex", Limit.of(51)))
+                .thenReturn(List.of(id(1L)));
+        when(bookRepository.findFieldsByIdIn(List.of(1L), BookField.ALL)).thenReturn(List.of(bookDTO));
 
         // Act
-        List<BookDTO> result = bookService.searchBooks(null, "saint-ex");
+        BookPageDTO result = bookService.searchBooks(null, "saint-ex", null, null);
 
         // Assert
-        assertThat(result).hasSize(1);
+        assertThat(result.getBooks()).hasSize(1);
     }
 
     @Test
     void shouldReturnEmptyListWhenBookAuthorDoesNotExist() {
         // Arrange
-        when(bookRepository.findByAuthorsNameContainingIgnoreCase("unknown")).thenReturn(Collections.emptyList());
-        when(bookMapper.booksToBookDTOs(Collections.emptyList())).thenReturn(Collections.emptyList());
+        when(bookRepository.findDistinctIdsByIdGreaterThanAndAuthorsNameContainingIgnoreCaseOrderByIdAsc(0L, "unknown", Limit.of(51)))
+                .thenReturn(Collections.emptyList());
 
         // Act
-        List<BookDTO> result = bookService.searchBooks(null, "unknown");
+        BookPageDTO result = bookService.searchBooks(null, "unknown", null, null);
 
         // Assert
-        assertThat(result).isEmpty();
+        assertThat(result.getBooks()).isEmpty();
     }
 
     @Test
@@ -219,9 +448,8 @@ class BookServiceTest {
     @Test
     void shouldUpdateBookWithoutAuthor() {
         // Arrange
-        when(bookRepository.findByIsbn(bookDTO.getIsbn())).thenReturn(Optional.of(book));
-        when(authorService.findOrCreateAuthor(author.getName())).thenReturn(author);
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(bookRepository.findByIsbnForUpdate(bookDTO.getIsbn())).thenReturn(Optional.of(book));
+        when(authorService.findOrCreateAuthors(bookDTO.getAuthors())).thenReturn(Map.of(author.getName(), author));
         when(bookMapper.bookToBookDTO(book)).thenReturn(bookDTO);
 
         // Act
@@ -237,8 +465,7 @@ class BookServiceTest {
     @Test
     void shouldUpdateBookWithEmptyAuthorList() {
         // Arrange
-        when(bookRepository.findByIsbn(bookDTOWithEmptyAuthorList.getIsbn())).thenReturn(Optional.of(book));
-        when(bookRepository.save(book)).thenReturn(book);
+        when(bookRepository.findByIsbnForUpdate(bookDTOWithEmptyAuthorList.getIsbn())).thenReturn(Optional.of(book));
         when(bookMapper.bookToBookDTO(any(Book.class))).thenReturn(bookDTOWithEmptyAuthorList);
 
         // Act
@@ -249,27 +476,134 @@ class BookServiceTest {
         assertThat(result.getTitle()).isEqualTo("Le Petit Prince");
         assertThat(result.getPageCount()).isEqualTo(100);
         assertThat(result.getAuthors()).isEmpty();
-        verify(authorService, times(0)).findOrCreateAuthor(any(String.class));
+        verify(authorService, times(0)).findOrCreateAuthors(any());
+    }
+
+
+
+    @Test
+    void shouldPatchOnlyFieldsSent() {
+        // Arrange
+        when(bookRepository.findByIsbnForUpdate(book.getIsbn())).thenReturn(Optional.of(book));
+        when(bookMapper.bookToBookDTO(book)).thenReturn(bookDTO);
+
+        // Act
+        bookService.patchBook(book.getIsbn(), BookPatchDTO.builder().summary("Un conte philosophique.").build(), null);
+
+        // Assert
+        assertThat(book.getSummary()).isEqualTo("Un conte philosophique.");
+        assertThat(book.getTitle()).isEqualTo("Le Petit Prince");
+        assertThat(book.getPageCount()).isEqualTo(100);
+        verify(authorService, never()).findOrCreateAuthors(any());
+        verify(eventPublisher).publishEvent(BookChangedEvent.updated(bookDTO, List.of()));
     }
 
+    @Test
+    void shouldOnlyAddAndRemoveChangedAuthors() {
+        // Arrange
+        Author kept = Author.builder().id(1L).name("Kept").build();
+        Author removed = Author.builder().id(2L).name("Removed").build();
+        Author added = Author.builder().id(3L).name("Added").build();
+        book.getAuthors().addAll(List.of(kept, removed));
+        Set<Author> authors = book.getAuthors();
+        when(bookRepository.findByIsbnForUpdate(book.getIsbn())).thenReturn(Optional.of(book));
+        when(authorService.findOrCreateAuthors(List.of("Kept", "Added")))
+                .thenReturn(Map.of("Kept", Author.builder().id(1L).name("Kept").build(), "Added", added));
+        when(bookMapper.bookToBookDTO(book)).thenReturn(bookDTO);
 
+        // Act
+        bookService.patchBook(book.getIsbn(), BookPatchDTO.builder().authors(List.of("Kept", "Added")).build(), null);
+
+        // Assert
+        assertThat(book.getAuthors()).isSameAs(authors).containsExactlyInAnyOrder(kept, added).doesNotContain(removed);
+    }
+
+    @Test
+    void shouldRejectPatchNotMatchingIfMatch() {
+        // Arrange
+        book.setVersion(2L);
+        when(bookRepository.findByIsbnForUpdate(book.getIsbn())).thenReturn(Optional.of(book));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookService.patchBook(book.getIsbn(),
+                BookPatchDTO.builder().title("Titre").build(), BookETag.of(1L, 1L)));
+        assertThat(book.getTitle()).isEqualTo("Le Petit Prince");
+        verify(bookRepository, never()).flush();
+    }
+
+    @Test
+    void shouldRejectUpdateNotMatchingIfMatch() {
+        // Arrange
+        book.setVersion(2L);
+        when(bookRepository.findByIsbnForUpdate(bookDTO.getIsbn())).thenReturn(Optional.of(book));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookService.updateBook(bookDTO, BookETag.of(1L, 1L)));
+        verify(bookRepository, never()).flush();
+    }
+
+    @Test
+    void shouldRejectUpdateOfStaleVersion() {
+        // Arrange
+        book.setVersion(2L);
+        when(bookRepository.findByIsbnForUpdate(bookDTO.getIsbn())).thenReturn(Optional.of(book));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> bookService.updateBook(bookDTO.toBuilder().version(1L).build(), BookETag.of(1L, 2L)));
+        verify(bookRepository, never()).flush();
+    }
+
+    @Test
+    void shouldTagBookFromCacheOrVersion() {
+        // Arrange
+        BookVersionView version = mock(BookVersionView.class);
+        when(version.getId()).thenReturn(1L);
+        when(version.getVersion()).thenReturn(4L);
+        when(bookRepository.findVersionByIsbn("9999999999999")).thenReturn(Optional.of(version));
+
+        // Act & Assert
+        assertThat(bookService.getBookETag("9999999999999")).isEqualTo(BookETag.of(1L, 4L));
+        assertThrows(ResourceNotFoundException.class, () -> bookService.getBookETag("0000000000"));
+        verify(bookMapper, never()).bookToBookDTO(any());
+    }
 
     @Test
     void shouldDeleteBook() {
         // Arrange
-        when(bookRepository.existsByIsbn("12345")).thenReturn(true);
+        Book book = Book.builder().isbn("12345").authors(Set.of(Author.builder().id(1L).name("Victor Hugo").build())).build();
+        when(bookRepository.findByIsbn("12345")).thenReturn(Optional.of(book));
 
         // Act
         bookService.deleteBook("12345");
 
         // Assert
-        verify(bookRepository, atMostOnce()).deleteByIsbn("12345");
+        verify(bookRepository).delete(book);
+        verify(eventPublisher).publishEvent(BookChangedEvent.deleted("12345", List.of("Victor Hugo")));
+        verifyNoInteractions(isbnFilter);
     }
 
     @Test
     void shouldDeleteBookWithIdNotFound() {
+        // Arrange
+        when(isbnFilter.mightContain("9999999999")).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookService.deleteBook("9999999999"));
+        verify(isbnFilter).recordFalsePositive();
+    }
+
+    @Test
+    void shouldNotRecordFalsePositiveWhenFilterRulesOutIsbn() {
+        // Arrange
+        when(isbnFilter.mightContain("9999999999")).thenReturn(false);
+
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookService.deleteBook("9999999999"));
+        verify(isbnFilter, never()).recordFalsePositive();
+    }
 
+    private static BookIdView id(long id) {
+        return () -> id;
     }
 }
@@ -0,0 +1,131 @@
+package com.librairie.catalogue.service;
+
+import com.librairie.catalogue.config.ChangeFeedProperties;
+import com.librairie.catalogue.config.PaginationProperties;
+import com.librairie.catalogue.exception.BadRequestException;
+import com.librairie.catalogue.mapper.ChangeMapper;
+import com.librairie.catalogue.model.ChangeLogEntry;
+import com.librairie.catalogue.model.dto.ChangeDTO;
+import com.librairie.catalogue.model.dto.ChangePageDTO;
+import com.librairie.catalogue.repository.BookRepository;
+import com.librairie.catalogue.repository.ChangeLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedServiceTest {
+    private static final Instant RECORDED_AT = Instant.parse("2025-01-01T10:15:30.123456Z");
+
+    @Mock
+    private ChangeLogRepository changeLogRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private ChangeMapper changeMapper;
+
+    private final ChangeFeedProperties properties = new ChangeFeedProperties();
+
+    private ChangeFeedService changeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setStreamBatchSize(2);
+        properties.setPollInterval(Duration.ofMillis(10));
+        changeFeedService = new ChangeFeedService(changeLogRepository, bookRepository, changeMapper,
+                new PaginationProperties(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeedService.shutdown();
+    }
+
+    @Test
+    void shouldEncodeAndDecodeCursor() {
+        ChangeCursor cursor = new ChangeCursor(RECORDED_AT, 42L);
+
+        assertThat(ChangeCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThat(ChangeCursor.decode(null)).isEqualTo(ChangeCursor.START);
+        assertThrows(BadRequestException.class, () -> ChangeCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> ChangeCursor.decode(ContinuationToken.encode(42L)));
+    }
+
+    @Test
+    void shouldReturnCursorOfLastChangeOrSameCursor() {
+        ChangeCursor since = new ChangeCursor(RECORDED_AT, 1L);
+        when(changeLogRepository.findAfter(eq(RECORDED_AT), eq(1L), any(Instant.class), eq(Limit.of(50))))
+                .thenReturn(List.of(entry(2L), entry(3L)))
+                .thenReturn(List.of());
+
+        ChangePageDTO page = changeFeedService.getChanges(since.encode(), null);
+        assertThat(page.getNextCursor()).isEqualTo(new ChangeCursor(RECORDED_AT, 3L).encode());
+
+        assertThat(changeFeedService.getChanges(since.encode(), null).getNextCursor()).isEqualTo(since.encode());
+    }
+
+    @Test
+    void shouldStreamChangesInBatchesUntilClientIsGone() {
+        List<ChangeLogEntry> entries = LongStream.rangeClosed(1, 6).mapToObj(ChangeFeedServiceTest::entry).toList();
+        when(changeLogRepository.findAfter(any(Instant.class), anyLong(), any(Instant.class), eq(Limit.of(2))))
+                .thenReturn(entries.subList(0, 2), entries.subList(2, 4), entries.subList(4, 5), entries.subList(5, 6));
+        when(changeMapper.entryToChangeDTO(any())).thenReturn(new ChangeDTO());
+        RecordingEmitter emitter = new RecordingEmitter(5);
+
+        changeFeedService.tail(emitter, ChangeCursor.START);
+
+        assertThat(emitter.sent).isEqualTo(5);
+        // A batch is only read once the previous one was sent, from its last entry
+        verify(changeLogRepository).findAfter(eq(RECORDED_AT), eq(2L), any(Instant.class), eq(Limit.of(2)));
+        verify(changeLogRepository).findAfter(eq(RECORDED_AT), eq(4L), any(Instant.class), eq(Limit.of(2)));
+        verify(changeLogRepository).findAfter(eq(RECORDED_AT), eq(5L), any(Instant.class), eq(Limit.of(2)));
+    }
+
+    private static ChangeLogEntry entry(long id) {
+        return ChangeLogEntry.builder()
+                .id(id)
+                .recordedAt(RECORDED_AT)
+                .resource(ChangeLogEntry.Resource.BOOK)
+                .type(ChangeLogEntry.ChangeType.UPDATED)
+                .resourceId("66000000" + id)
+                .build();
+    }
+
+    // Fails like a disconnected client once it received its events
+    private static class RecordingEmitter extends SseEmitter {
+        private final int capacity;
+        private int sent;
+
+        RecordingEmitter(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (sent == capacity) {
+                throw new IOException("Broken pipe");
+            }
+            sent++;
+        }
+    }
+}
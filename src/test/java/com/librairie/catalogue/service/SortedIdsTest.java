@@ -0,0 +1,62 @@
+package com.librairie.catalogue.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedIdsTest {
+
+    @Test
+    void shouldIntersectAndMergeIds() {
+        long[] first = {1, 3, 5, 7};
+        long[] second = {2, 3, 7, 8};
+
+        assertThat(SortedIds.intersect(first, second)).containsExactly(3, 7);
+        assertThat(SortedIds.union(first, second)).containsExactly(1, 2, 3, 5, 7, 8);
+        assertThat(SortedIds.intersect(first, new long[0])).isEmpty();
+        assertThat(SortedIds.union(new long[0], second)).containsExactly(2, 3, 7, 8);
+    }
+
+    @Test
+    void shouldCountIdsUpToBound() {
+        long[] ids = {2, 4, 6};
+
+        assertThat(SortedIds.countUpTo(ids, 1)).isZero();
+        assertThat(SortedIds.countUpTo(ids, 4)).isEqualTo(2);
+        assertThat(SortedIds.countUpTo(ids, 5)).isEqualTo(2);
+        assertThat(SortedIds.countUpTo(ids, Long.MAX_VALUE)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldMatchSetOperationsOnSkewedSizes() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            // Sizes up to a few thousand against a few, both the merge and the binary search paths run
+            TreeSet<Long> small = randomIds(random, 1 + random.nextInt(round % 2 == 0 ? 20 : 2_000));
+            TreeSet<Long> large = randomIds(random, 1 + random.nextInt(5_000));
+
+            TreeSet<Long> intersection = new TreeSet<>(small);
+            intersection.retainAll(large);
+            TreeSet<Long> union = new TreeSet<>(small);
+            union.addAll(large);
+
+            assertThat(SortedIds.intersect(toArray(small), toArray(large))).isEqualTo(toArray(intersection));
+            assertThat(SortedIds.intersect(toArray(large), toArray(small))).isEqualTo(toArray(intersection));
+            assertThat(SortedIds.union(toArray(small), toArray(large))).isEqualTo(toArray(union));
+        }
+    }
+
+    private static TreeSet<Long> randomIds(Random random, int count) {
+        TreeSet<Long> ids = new TreeSet<>();
+        LongStream.generate(() -> 1 + random.nextInt(10_000)).limit(count).forEach(ids::add);
+        return ids;
+    }
+
+    private static long[] toArray(TreeSet<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
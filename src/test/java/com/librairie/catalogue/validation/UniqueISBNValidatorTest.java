@@ -1,5 +1,6 @@
 package com.librairie.catalogue.validation;
 
+import com.librairie.catalogue.cache.IsbnFilter;
 import com.librairie.catalogue.repository.BookRepository;
 import jakarta.validation.ConstraintValidatorContext;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,12 +20,15 @@ class UniqueISBNValidatorTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private IsbnFilter isbnFilter;
+
     @Mock
     private ConstraintValidatorContext context;
 
     @BeforeEach
     void setUp() {
-        validator = new UniqueISBNValidator(bookRepository);
+        validator = new UniqueISBNValidator(bookRepository, isbnFilter);
     }
 
     @Test
@@ -43,6 +47,7 @@ class UniqueISBNValidatorTest {
 
     @Test
     void shouldReturnFalseWhenIsbnAlreadyExists() {
+        when(isbnFilter.mightContain("1234567890")).thenReturn(true);
         when(bookRepository.existsByIsbn("1234567890")).thenReturn(true);
 
         boolean result = validator.isValid("1234567890", context);
@@ -53,12 +58,24 @@ class UniqueISBNValidatorTest {
 
     @Test
     void shouldReturnTrueWhenIsbnDoesNotExist() {
+        when(isbnFilter.mightContain("0987654321")).thenReturn(true);
         when(bookRepository.existsByIsbn("0987654321")).thenReturn(false);
 
         boolean result = validator.isValid("0987654321", context);
 
         assertThat(result).isTrue();
         verify(bookRepository).existsByIsbn("0987654321");
+        verify(isbnFilter).recordFalsePositive();
+    }
+
+    @Test
+    void shouldSkipDatabaseWhenFilterRulesOutIsbn() {
+        when(isbnFilter.mightContain("0987654321")).thenReturn(false);
+
+        boolean result = validator.isValid("0987654321", context);
+
+        assertThat(result).isTrue();
+        verifyNoInteractions(bookRepository);
     }
 
 }
\ No newline at end of file